@@ -9,14 +9,19 @@ import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
 import java.io.*;
 import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
 import java.nio.file.*;
 import java.security.*;
 import java.util.*;
 import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
+import java.util.function.*;
 import java.util.regex.*;
 import java.util.zip.*;
 
@@ -34,9 +39,15 @@ public class CTXLauncher {
     private static final boolean IS_MAC = OS_NAME.contains("mac");
     private static final boolean IS_ARM = OS_ARCH.contains("aarch64") || OS_ARCH.contains("arm");
 
+    private static final String STARTUP_MILESTONES = "lwjgl=Backend library: LWJGL|LWJGL Version;reload=Reloading ResourceManager;menu=Sound engine started";
+    private static final Font PLAY_FONT = new Font("Segoe UI", Font.BOLD, 20);
+    private static final Color PLAY_NORMAL = new Color(70, 160, 70), PLAY_HOVER = new Color(80, 180, 80), PLAY_PRESSED = new Color(60, 140, 60);
+
     private File gameDirectory, versionsDir, librariesDir, assetsDir, nativesDir;
+    private File storeDir; // shared SHA-1 keyed object store, null when disabled
+    private NativeCache nativeCache;
     private JFrame frame;
-    private JTextField usernameField, gameDirField, jvmArgsField;
+    private JTextField usernameField, gameDirField, jvmArgsField, storeField;
     private JSlider ramSlider;
     private JComboBox<String> versionTypeCombo, versionCombo;
     private JButton playButton;
@@ -51,6 +62,9 @@ public class CTXLauncher {
     private AtomicInteger downloadedFiles = new AtomicInteger(0);
     private AtomicInteger totalFiles = new AtomicInteger(0);
     private List<File> nativeJars = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    private final Object[] lockStripes = new Object[256];
+    private final Map<File, FileChannel> lockChannels = new HashMap<>();
 
     private static class VersionInfo {
         String id, type, url;
@@ -61,6 +75,7 @@ public class CTXLauncher {
     public static void main(String[] args) { SwingUtilities.invokeLater(CTXLauncher::new); }
 
     public CTXLauncher() {
+        for (int i = 0; i < lockStripes.length; i++) lockStripes[i] = new Object();
         initDirs();
         createUI();
         loadVersionManifest();
@@ -82,6 +97,9 @@ public class CTXLauncher {
         new File(assetsDir, "objects").mkdirs();
         librariesDir.mkdirs();
         nativesDir.mkdirs();
+        nativeCache = new NativeCache(nativesDir);
+        String store = System.getProperty("ctx.store");
+        if (store != null && !store.isEmpty()) setStore(store);
         
         log("OS: " + OS_NAME + " / Arch: " + OS_ARCH + (IS_ARM ? " (ARM)" : " (x64)"));
         log("Game Dir: " + gameDirectory);
@@ -96,11 +114,17 @@ public class CTXLauncher {
         frame.setLocationRelativeTo(null);
 
         JPanel mainPanel = new JPanel(new BorderLayout(10, 10)) {
+            BufferedImage bg; // vertical gradient, 1px wide, stretched; redrawn only when the height changes
             protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                Graphics2D g2d = (Graphics2D) g;
-                g2d.setPaint(new GradientPaint(0, 0, new Color(0, 102, 204), 0, getHeight(), Color.WHITE));
-                g2d.fillRect(0, 0, getWidth(), getHeight());
+                int h = getHeight();
+                if (bg == null || bg.getHeight() != h) {
+                    bg = new BufferedImage(1, Math.max(h, 1), BufferedImage.TYPE_INT_RGB);
+                    Graphics2D g2d = bg.createGraphics();
+                    g2d.setPaint(new GradientPaint(0, 0, new Color(0, 102, 204), 0, h, Color.WHITE));
+                    g2d.fillRect(0, 0, 1, h);
+                    g2d.dispose();
+                }
+                g.drawImage(bg, 0, 0, getWidth(), h, null);
             }
         };
         mainPanel.setBorder(new EmptyBorder(15, 15, 15, 15));
@@ -181,10 +205,10 @@ public class CTXLauncher {
         playButton = new JButton("PLAY") {
             protected void paintComponent(Graphics gr) {
                 Graphics2D g2 = (Graphics2D) gr;
-                g2.setColor(getModel().isPressed() ? new Color(60,140,60) : getModel().isRollover() ? new Color(80,180,80) : new Color(70,160,70));
+                g2.setColor(getModel().isPressed() ? PLAY_PRESSED : getModel().isRollover() ? PLAY_HOVER : PLAY_NORMAL);
                 g2.fillRoundRect(0, 0, getWidth(), getHeight(), 10, 10);
                 g2.setColor(Color.WHITE);
-                g2.setFont(new Font("Segoe UI", Font.BOLD, 20));
+                g2.setFont(PLAY_FONT);
                 FontMetrics fm = g2.getFontMetrics();
                 g2.drawString(getText(), (getWidth()-fm.stringWidth(getText()))/2, (getHeight()+fm.getAscent()-fm.getDescent())/2);
             }
@@ -220,6 +244,14 @@ public class CTXLauncher {
         jvmArgsField = textField("-XX:+UseG1GC -XX:+UnlockExperimentalVMOptions");
         p.add(jvmArgsField, g);
 
+        g.gridx = 0; g.gridy = 2; g.gridwidth = 1;
+        p.add(label("Shared Store:"), g);
+        g.gridx = 1; g.gridwidth = 2;
+        storeField = textField(storeDir != null ? storeDir.getAbsolutePath() : "");
+        storeField.setToolTipText("Directory for a shared content-addressed library/asset store (empty = off)");
+        storeField.addActionListener(e -> setStore(storeField.getText().trim()));
+        p.add(storeField, g);
+
         return p;
     }
 
@@ -257,33 +289,91 @@ public class CTXLauncher {
         setStatus("Loading versions...");
         executor.submit(() -> {
             try {
-                String json = downloadString(VERSION_MANIFEST_URL);
-                allVersions.clear();
-                versionCache.clear();
-                Pattern pat = Pattern.compile("\\{[^{}]*\"id\"\\s*:\\s*\"([^\"]+)\"[^{}]*\"type\"\\s*:\\s*\"([^\"]+)\"[^{}]*\"url\"\\s*:\\s*\"([^\"]+)\"[^{}]*\\}", Pattern.DOTALL);
-                Matcher m = pat.matcher(json);
-                while (m.find()) {
-                    VersionInfo v = new VersionInfo(m.group(1), m.group(2), m.group(3));
-                    allVersions.add(v);
-                    versionCache.put(v.id, v);
+                SwingUtilities.invokeLater(() -> { allVersions.clear(); versionCache.clear(); if (versionCombo != null) versionCombo.removeAllItems(); });
+                // Entries reach the combo as they arrive; the newest come first, so the first goes out alone
+                List<VersionInfo> batch = new ArrayList<>();
+                int[] sent = {0};
+                try (Reader r = new BufferedReader(new InputStreamReader(openStream(VERSION_MANIFEST_URL), StandardCharsets.UTF_8))) {
+                    streamEntries(r, obj -> {
+                        String id = field(obj, "id"), type = field(obj, "type"), url = field(obj, "url");
+                        if (id == null || url == null) return;
+                        batch.add(new VersionInfo(id, type == null ? "" : type, url));
+                        if (batch.size() >= (sent[0] == 0 ? 1 : 64)) { sent[0] += batch.size(); addVersions(new ArrayList<>(batch)); batch.clear(); }
+                    });
                 }
-                SwingUtilities.invokeLater(() -> { filterVersions(); setStatus("Ready - " + allVersions.size() + " versions"); });
-                log("Loaded " + allVersions.size() + " versions");
+                int total = sent[0] + batch.size();
+                addVersions(batch);
+                setStatus("Ready - " + total + " versions");
+                log("Loaded " + total + " versions");
             } catch (Exception e) { log("Error: " + e.getMessage()); setStatus("Error loading versions"); }
         });
     }
 
+    private void addVersions(List<VersionInfo> vs) {
+        SwingUtilities.invokeLater(() -> {
+            if (versionCombo == null) return;
+            String type = (String) versionTypeCombo.getSelectedItem();
+            boolean empty = versionCombo.getItemCount() == 0;
+            for (VersionInfo v : vs) {
+                if (versionCache.putIfAbsent(v.id, v) != null) continue;
+                allVersions.add(v);
+                if (matches(v, type)) versionCombo.addItem(v.id);
+            }
+            if (empty && versionCombo.getItemCount() > 0) versionCombo.setSelectedIndex(0);
+        });
+    }
+
+    // Objects inside root-level arrays ("versions"), each handed over as raw JSON once its closing brace arrives;
+    // field order and unknown fields don't matter
+    private static void streamEntries(Reader r, Consumer<String> entry) throws IOException {
+        StringBuilder obj = null;
+        int depth = 0, c;
+        boolean str = false, esc = false, inArray = false;
+        while ((c = r.read()) != -1) {
+            if (obj != null) obj.append((char) c);
+            if (str) { if (esc) esc = false; else if (c == '\\') esc = true; else if (c == '"') str = false; continue; }
+            if (c == '"') str = true;
+            else if (c == '[' && depth == 1) { inArray = true; depth++; }
+            else if (c == '{' || c == '[') { if (c == '{' && depth == 2 && inArray && obj == null) obj = new StringBuilder("{"); depth++; }
+            else if (c == '}' || c == ']') {
+                depth--;
+                if (depth == 2 && obj != null) { entry.accept(obj.toString()); obj = null; }
+                if (depth == 1) inArray = false;
+            }
+        }
+    }
+
     private void filterVersions() {
         if (versionCombo == null) return;
         String type = (String) versionTypeCombo.getSelectedItem();
         versionCombo.removeAllItems();
-        for (VersionInfo v : allVersions) {
-            boolean ok = type.equals("All") || (type.equals("Release") && v.type.equals("release")) || (type.equals("Snapshot") && v.type.equals("snapshot")) || (type.equals("Old Beta") && v.type.equals("old_beta")) || (type.equals("Old Alpha") && v.type.equals("old_alpha"));
-            if (ok) versionCombo.addItem(v.id);
-        }
+        for (VersionInfo v : allVersions) if (matches(v, type)) versionCombo.addItem(v.id);
         if (versionCombo.getItemCount() > 0) versionCombo.setSelectedIndex(0);
     }
 
+    private static boolean matches(VersionInfo v, String type) {
+        return type.equals("All") || (type.equals("Release") && v.type.equals("release")) || (type.equals("Snapshot") && v.type.equals("snapshot")) || (type.equals("Old Beta") && v.type.equals("old_beta")) || (type.equals("Old Alpha") && v.type.equals("old_alpha"));
+    }
+
+    // Appends "date\tkey\tprep=.. jvm=+.. <milestone>=+.. total=..[ (incomplete)]\tjvm args" to
+    // ~/.ctxlauncher/launch-times.log, the same history CTXLauncher 0.1 keeps
+    private void recordStartup(String key, String jvmArgs, Map<String, Long> marks, boolean complete) {
+        StringBuilder sb = new StringBuilder("prep=" + marks.get("prep"));
+        long prev = 0;
+        for (Map.Entry<String, Long> m : marks.entrySet()) {
+            if (m.getKey().equals("prep")) continue;
+            sb.append(' ').append(m.getKey()).append("=+").append(m.getValue() - prev);
+            prev = m.getValue();
+        }
+        sb.append(" total=").append(marks.get("prep") + prev).append(complete ? "" : " (incomplete)");
+        log("Startup: " + key + " " + sb + " ms");
+        File f = new File(System.getProperty("user.home"), ".ctxlauncher/launch-times.log");
+        f.getParentFile().mkdirs();
+        try (Writer w = new OutputStreamWriter(new FileOutputStream(f, true), StandardCharsets.UTF_8)) {
+            w.write(String.format("%tF %<tT\t%s\t%s\t%s%n", new Date(), key, sb, jvmArgs));
+        } catch (IOException e) { log("Could not update launch history: " + e.getMessage()); }
+    }
+
     private void launchGame() {
         if (isDownloading) return;
         String ver = (String) versionCombo.getSelectedItem();
@@ -296,6 +386,7 @@ public class CTXLauncher {
         playButton.setEnabled(false);
         playButton.setText("LAUNCHING...");
         isDownloading = true;
+        long t0 = System.nanoTime();
         downloadedFiles.set(0);
         totalFiles.set(0);
         nativeJars.clear();
@@ -312,14 +403,11 @@ public class CTXLauncher {
                 File verDir = new File(versionsDir, ver);
                 verDir.mkdirs();
                 File jsonFile = new File(verDir, ver + ".json");
-                String vJson;
                 if (!jsonFile.exists()) {
                     log("Downloading version JSON...");
-                    vJson = downloadString(vi.url);
-                    Files.write(jsonFile.toPath(), vJson.getBytes("UTF-8"));
-                } else {
-                    vJson = new String(Files.readAllBytes(jsonFile.toPath()), "UTF-8");
+                    downloadFile(vi.url, jsonFile);
                 }
+                String vJson = readUtf8(jsonFile);
 
                 // Download client JAR
                 File clientJar = new File(verDir, ver + ".jar");
@@ -329,7 +417,7 @@ public class CTXLauncher {
                     if (m.find()) {
                         log("Downloading client JAR...");
                         setStatus("Downloading Minecraft...");
-                        downloadFile(m.group(1), clientJar);
+                        fetch(m.group(1), field(m.group(0), "sha1"), clientJar);
                         log("Client: " + (clientJar.length()/1024/1024) + " MB");
                     } else throw new Exception("Client URL not found");
                 }
@@ -339,33 +427,18 @@ public class CTXLauncher {
                 downloadLibraries(vJson);
 
                 // Extract natives
+                // nDir is assembled from links into the shared natives store
                 File nDir = new File(nativesDir, ver);
-                nDir.mkdirs();
-                File[] oldNatives = nDir.listFiles();
-                if (oldNatives != null) for (File old : oldNatives) if (old.isFile()) old.delete();
+                nativeCache.beginVersion(ver, nDir);
                 
-                log("Extracting natives to: " + nDir.getAbsolutePath());
+                log("Linking natives into: " + nDir.getAbsolutePath());
                 int extractedCount = 0;
                 for (File nj : nativeJars) {
                     if (!nj.exists()) continue;
-                    try (ZipFile zf = new ZipFile(nj)) {
-                        Enumeration<? extends ZipEntry> en = zf.entries();
-                        while (en.hasMoreElements()) {
-                            ZipEntry ze = en.nextElement();
-                            String nm = ze.getName();
-                            if (ze.isDirectory() || nm.startsWith("META-INF")) continue;
-                            if (nm.endsWith(".dll") || nm.endsWith(".so") || nm.endsWith(".dylib") || nm.endsWith(".jnilib")) {
-                                File out = new File(nDir, new File(nm).getName());
-                                try (InputStream in = zf.getInputStream(ze); FileOutputStream fos = new FileOutputStream(out)) {
-                                    byte[] buf = new byte[8192]; int len;
-                                    while ((len = in.read(buf)) > 0) fos.write(buf, 0, len);
-                                }
-                                extractedCount++;
-                            }
-                        }
-                    } catch (Exception e) { log("Native extract error: " + e.getMessage()); }
+                    try { extractedCount += nativeCache.linkJar(nj, ver, nDir); }
+                    catch (Exception e) { log("Native extract error: " + e.getMessage()); }
                 }
-                log("Extracted " + extractedCount + " native libraries");
+                log("Linked " + extractedCount + " native libraries");
                 
                 // Check for LWJGL natives, extract from library folder if needed
                 boolean hasLwjgl = false;
@@ -373,8 +446,9 @@ public class CTXLauncher {
                 if (nativeFiles != null) for (File f : nativeFiles) if (f.getName().contains("lwjgl")) { hasLwjgl = true; break; }
                 if (!hasLwjgl) {
                     log("Extracting LWJGL natives from library folder...");
-                    extractLwjglNatives(nDir);
+                    extractLwjglNatives(nDir, ver);
                 }
+                try { nativeCache.save(); } catch (IOException e) { log("Natives manifest: " + e.getMessage()); }
 
                 // Download assets
                 setStatus("Downloading assets...");
@@ -466,13 +540,37 @@ public class CTXLauncher {
                 if (IS_MAC) env.put("DYLD_LIBRARY_PATH", nDir.getAbsolutePath());
                 else if (!IS_WINDOWS) env.put("LD_LIBRARY_PATH", nDir.getAbsolutePath());
                 
+                // Startup timing: prep (Play to spawn), jvm (spawn to first output), then each milestone.
+                // Keyed like 0.1: version plus a hash of the JVM args, minus the per-install natives path
+                List<String> timedArgs = new ArrayList<>();
+                for (String a : cmd.subList(1, cmd.indexOf("-cp"))) if (!a.startsWith("-Djava.library.path=") && !a.startsWith("-Xlog")) timedArgs.add(a);
+                String timedLine = String.join(" ", timedArgs);
+                String key = ver + "@" + String.format("%08x", timedLine.hashCode());
+                Map<String, Pattern> milestones = new LinkedHashMap<>();
+                for (String m : System.getProperty("ctx.milestones", STARTUP_MILESTONES).split(";")) {
+                    String[] kv = m.split("=", 2);
+                    try { if (kv.length == 2) milestones.put(kv[0], Pattern.compile(kv[1])); } catch (PatternSyntaxException e) { log("Bad milestone: " + m); }
+                }
+                Map<String, Long> marks = new LinkedHashMap<>();
+                long spawn = System.nanoTime();
+                marks.put("prep", (spawn - t0) / 1_000_000);
                 Process proc = pb.start();
 
                 new Thread(() -> {
                     try (BufferedReader br = new BufferedReader(new InputStreamReader(proc.getInputStream()))) {
                         String line;
-                        while ((line = br.readLine()) != null) log("[MC] " + line);
+                        while ((line = br.readLine()) != null) {
+                            log("[MC] " + line);
+                            long ms = (System.nanoTime() - spawn) / 1_000_000;
+                            int before = marks.size();
+                            marks.putIfAbsent("jvm", ms);
+                            for (Map.Entry<String, Pattern> m : milestones.entrySet())
+                                if (!marks.containsKey(m.getKey()) && m.getValue().matcher(line).find()) marks.put(m.getKey(), ms);
+                            if (before < marks.size() && marks.size() == milestones.size() + 2) recordStartup(key, timedLine, marks, true);
+                        }
                     } catch (Exception e) {}
+                    // Exited or crashed before the last milestone
+                    if (marks.containsKey("jvm") && marks.size() < milestones.size() + 2) recordStartup(key, timedLine, marks, false);
                     try {
                         int exit = proc.waitFor();
                         log("Game exited with code: " + exit);
@@ -495,6 +593,11 @@ public class CTXLauncher {
         });
     }
 
+    private void setStore(String path) {
+        storeDir = path.isEmpty() ? null : new File(path).getAbsoluteFile();
+        if (storeDir != null) { new File(storeDir, "objects").mkdirs(); log("Shared store: " + storeDir); }
+    }
+
     private void downloadLibraries(String vJson) throws Exception {
         String osName = IS_WINDOWS ? "windows" : IS_MAC ? "osx" : "linux";
         
@@ -510,21 +613,25 @@ public class CTXLauncher {
         }
         nativeKeys.add("natives-" + osName);
 
-        // Find artifact downloads
-        Pattern artP = Pattern.compile("\"artifact\"\\s*:\\s*\\{[^}]*\"path\"\\s*:\\s*\"([^\"]+)\"[^}]*\"url\"\\s*:\\s*\"([^\"]+)\"", Pattern.DOTALL);
+        // Find artifact downloads: {path, url, isNative, sha1}
+        Pattern artP = Pattern.compile("\"artifact\"\\s*:\\s*\\{([^}]*)\\}", Pattern.DOTALL);
         Matcher artM = artP.matcher(vJson);
         List<String[]> libs = new ArrayList<>();
-        while (artM.find()) libs.add(new String[]{artM.group(1), artM.group(2), "false"});
+        while (artM.find()) {
+            String body = artM.group(1), path = field(body, "path"), url = field(body, "url");
+            if (path != null && url != null) libs.add(new String[]{path, url, "false", field(body, "sha1")});
+        }
 
         // Find native classifiers
         for (String nativeKey : nativeKeys) {
-            Pattern natP = Pattern.compile("\"" + Pattern.quote(nativeKey) + "\"\\s*:\\s*\\{[^}]*\"path\"\\s*:\\s*\"([^\"]+)\"[^}]*\"url\"\\s*:\\s*\"([^\"]+)\"", Pattern.DOTALL);
+            Pattern natP = Pattern.compile("\"" + Pattern.quote(nativeKey) + "\"\\s*:\\s*\\{([^}]*)\\}", Pattern.DOTALL);
             Matcher natM = natP.matcher(vJson);
             while (natM.find()) {
-                String path = natM.group(1);
+                String body = natM.group(1), path = field(body, "path"), url = field(body, "url");
+                if (path == null || url == null) continue;
                 boolean exists = false;
                 for (String[] lib : libs) if (lib[0].equals(path)) { exists = true; break; }
-                if (!exists) libs.add(new String[]{path, natM.group(2), "true"});
+                if (!exists) libs.add(new String[]{path, url, "true", field(body, "sha1")});
             }
         }
 
@@ -538,7 +645,7 @@ public class CTXLauncher {
                     File f = new File(librariesDir, lib[0]);
                     if (!f.exists() || f.length() == 0) {
                         f.getParentFile().mkdirs();
-                        downloadFile(lib[1], f);
+                        fetch(lib[1], lib[3], f);
                     }
                     if (lib[2].equals("true")) nativeJars.add(f);
                     downloadedFiles.incrementAndGet();
@@ -551,7 +658,7 @@ public class CTXLauncher {
         log("Libraries done. Native JARs: " + nativeJars.size());
     }
     
-    private void extractLwjglNatives(File nDir) {
+    private void extractLwjglNatives(File nDir, String ver) {
         // Determine correct LWJGL native suffix for this platform
         String osSuffix = IS_WINDOWS ? "windows" : IS_MAC ? (IS_ARM ? "macos-arm64" : "macos") : "linux";
         File lwjglDir = new File(librariesDir, "org/lwjgl");
@@ -562,24 +669,7 @@ public class CTXLauncher {
         log("Found " + lwjglNatives.size() + " LWJGL native JARs");
         
         for (File nj : lwjglNatives) {
-            try (ZipFile zf = new ZipFile(nj)) {
-                Enumeration<? extends ZipEntry> en = zf.entries();
-                while (en.hasMoreElements()) {
-                    ZipEntry ze = en.nextElement();
-                    String nm = ze.getName();
-                    if (ze.isDirectory() || nm.startsWith("META-INF")) continue;
-                    if (nm.endsWith(".dll") || nm.endsWith(".so") || nm.endsWith(".dylib") || nm.endsWith(".jnilib")) {
-                        File out = new File(nDir, new File(nm).getName());
-                        if (!out.exists()) {
-                            try (InputStream in = zf.getInputStream(ze); FileOutputStream fos = new FileOutputStream(out)) {
-                                byte[] buf = new byte[8192]; int len;
-                                while ((len = in.read(buf)) > 0) fos.write(buf, 0, len);
-                            }
-                            log("  Extracted: " + out.getName());
-                        }
-                    }
-                }
-            } catch (Exception e) {}
+            try { log("  Linked " + nativeCache.linkJar(nj, ver, nDir) + " from " + nj.getName()); } catch (Exception e) {}
         }
     }
     
@@ -601,36 +691,24 @@ public class CTXLauncher {
 
         String idxId = idxM.group(1), idxUrl = idxM.group(2);
         File idxFile = new File(assetsDir, "indexes/" + idxId + ".json");
-        String idxJson;
-        if (!idxFile.exists()) {
-            idxJson = downloadString(idxUrl);
-            Files.write(idxFile.toPath(), idxJson.getBytes("UTF-8"));
-        } else {
-            idxJson = new String(Files.readAllBytes(idxFile.toPath()), "UTF-8");
-        }
-
-        Pattern hashP = Pattern.compile("\"hash\"\\s*:\\s*\"([a-f0-9]{40})\"");
-        Matcher hashM = hashP.matcher(idxJson);
-        Set<String> hashes = new LinkedHashSet<>();
-        while (hashM.find()) hashes.add(hashM.group(1));
+        if (!idxFile.exists()) downloadFile(idxUrl, idxFile);
 
-        int need = 0;
-        for (String h : hashes) {
-            File af = new File(assetsDir, "objects/" + h.substring(0,2) + "/" + h);
-            if (!af.exists()) need++;
-        }
-        if (need == 0) { log("All assets present"); return; }
+        AssetIndex hashes = AssetIndex.parse(readBuffer(idxFile));
+        int[] need = hashes.slots();
+        int n = 0;
+        for (int slot : need) if (!new File(assetsDir, "objects/" + hashes.prefixAt(slot) + "/" + hashes.hashAt(slot)).exists()) need[n++] = slot;
+        if (n == 0) { log("All assets present"); return; }
 
-        log("Downloading " + need + " assets...");
-        totalFiles.addAndGet(need);
+        log("Downloading " + n + " assets...");
+        totalFiles.addAndGet(n);
         ExecutorService dl = Executors.newFixedThreadPool(DOWNLOAD_THREADS);
-        for (String h : hashes) {
-            File af = new File(assetsDir, "objects/" + h.substring(0,2) + "/" + h);
-            if (af.exists()) continue;
+        for (int slot : Arrays.copyOf(need, n)) {
             dl.submit(() -> {
                 try {
+                    String h = hashes.hashAt(slot);
+                    File af = new File(assetsDir, "objects/" + h.substring(0,2) + "/" + h);
                     af.getParentFile().mkdirs();
-                    downloadFile(RESOURCES_URL + h.substring(0,2) + "/" + h, af);
+                    fetch(RESOURCES_URL + h.substring(0,2) + "/" + h, h, af);
                     downloadedFiles.incrementAndGet();
                     setProgress((int)(downloadedFiles.get() * 100.0 / Math.max(1, totalFiles.get())));
                 } catch (Exception e) {}
@@ -640,6 +718,253 @@ public class CTXLauncher {
         dl.awaitTermination(10, TimeUnit.MINUTES);
     }
 
+    private static String field(String body, String key) {
+        Matcher m = Pattern.compile("\"" + key + "\"\\s*:\\s*\"([^\"]+)\"").matcher(body);
+        return m.find() ? m.group(1) : null;
+    }
+
+    // Downloads into the shared store (verified by SHA-1) and links dest to it; plain download without a store
+    private void fetch(String url, String sha1, File dest) throws Exception {
+        File store = storeDir;
+        if (store == null || sha1 == null || sha1.length() != 40) { downloadFile(url, dest); return; }
+        File obj = new File(store, "objects/" + sha1.substring(0, 2) + "/" + sha1);
+        // Checked on the .part: other launchers link store objects as soon as they exist
+        if (!obj.exists()) downloadFile(url, obj, sha1);
+        dest.getParentFile().mkdirs();
+        Files.deleteIfExists(dest.toPath());
+        try { Files.createLink(dest.toPath(), obj.toPath()); }
+        catch (IOException | UnsupportedOperationException e) {
+            try { Files.createSymbolicLink(dest.toPath(), obj.toPath()); }
+            catch (IOException | UnsupportedOperationException e2) { Files.copy(obj.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING); }
+        }
+    }
+
+    private static String sha1Hex(File f) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-1");
+        try (InputStream in = new FileInputStream(f)) {
+            byte[] buf = new byte[65536]; int len;
+            while ((len = in.read(buf)) > 0) md.update(buf, 0, len);
+        }
+        StringBuilder sb = new StringBuilder();
+        for (byte b : md.digest()) sb.append(String.format("%02x", b));
+        return sb.toString();
+    }
+
+    // Asset hashes packed 20 bytes apiece in an open-addressing table, sizes in a parallel long[] (-1 = empty);
+    // hex strings are only rebuilt by hashAt() when an object is fetched
+    static class AssetIndex {
+        private byte[] hashes;
+        private long[] sizes;
+        private int count;
+
+        AssetIndex(int expected) {
+            int cap = 16;
+            while (cap < expected * 2) cap <<= 1;
+            hashes = new byte[cap * 20];
+            sizes = new long[cap];
+            Arrays.fill(sizes, -1);
+        }
+
+        // Scans the index's UTF-8 bytes in place: each "hash" and the "size" inside the same {...}
+        static AssetIndex parse(ByteBuffer buf) {
+            AssetIndex idx = new AssetIndex(1024);
+            byte[] b = new byte[20];
+            for (int i = find(buf, "\"hash\"", 0, buf.limit()); i != -1; i = find(buf, "\"hash\"", i + 1, buf.limit())) {
+                int q = find(buf, "\"", find(buf, ":", i, buf.limit()), buf.limit()) + 1;
+                if (q == 0 || q + 40 > buf.limit()) continue;
+                boolean hex = true;
+                for (int k = 0; k < 20 && hex; k++) {
+                    int hi = Character.digit(buf.get(q + 2 * k), 16), lo = Character.digit(buf.get(q + 2 * k + 1), 16);
+                    hex = hi >= 0 && lo >= 0;
+                    b[k] = (byte) (hi << 4 | lo);
+                }
+                if (!hex) continue;
+                int start = i, end = find(buf, "}", i, buf.limit());
+                while (start > 0 && buf.get(start) != '{') start--;
+                long size = 0;
+                int sp = find(buf, "\"size\"", start, end < 0 ? buf.limit() : end);
+                if (sp != -1) {
+                    int k = find(buf, ":", sp, buf.limit()) + 1;
+                    while (k > 0 && k < buf.limit() && buf.get(k) == ' ') k++;
+                    while (k > 0 && k < buf.limit() && buf.get(k) >= '0' && buf.get(k) <= '9') size = size * 10 + (buf.get(k++) - '0');
+                }
+                idx.add(b, size);
+            }
+            return idx;
+        }
+
+        private static int find(ByteBuffer buf, String needle, int from, int limit) {
+            if (from < 0) return -1;
+            outer:
+            for (int i = from; i <= limit - needle.length(); i++) {
+                for (int j = 0; j < needle.length(); j++) if (buf.get(i + j) != needle.charAt(j)) continue outer;
+                return i;
+            }
+            return -1;
+        }
+
+        boolean add(byte[] b, long size) {
+            if ((count + 1) * 2 > sizes.length) grow();
+            int mask = sizes.length - 1, slot = slotHash(b, 0) & mask;
+            for (; sizes[slot] != -1; slot = (slot + 1) & mask) if (same(slot, b, 0)) return false;
+            System.arraycopy(b, 0, hashes, slot * 20, 20);
+            sizes[slot] = size;
+            count++;
+            return true;
+        }
+
+        int size() { return count; }
+
+        int[] slots() {
+            int[] out = new int[count];
+            for (int i = 0, n = 0; i < sizes.length; i++) if (sizes[i] >= 0) out[n++] = i;
+            return out;
+        }
+
+        String prefixAt(int slot) { return String.format("%02x", hashes[slot * 20] & 0xff); }
+
+        String hashAt(int slot) {
+            StringBuilder sb = new StringBuilder(40);
+            for (int i = 0; i < 20; i++) sb.append(Character.forDigit((hashes[slot * 20 + i] >> 4) & 0xf, 16)).append(Character.forDigit(hashes[slot * 20 + i] & 0xf, 16));
+            return sb.toString();
+        }
+
+        private void grow() {
+            byte[] oh = hashes; long[] os = sizes;
+            hashes = new byte[oh.length * 2];
+            sizes = new long[os.length * 2];
+            Arrays.fill(sizes, -1);
+            int mask = sizes.length - 1;
+            for (int i = 0; i < os.length; i++) {
+                if (os[i] < 0) continue;
+                int slot = slotHash(oh, i * 20) & mask;
+                while (sizes[slot] != -1) slot = (slot + 1) & mask;
+                System.arraycopy(oh, i * 20, hashes, slot * 20, 20);
+                sizes[slot] = os[i];
+            }
+        }
+
+        private boolean same(int slot, byte[] b, int off) {
+            for (int i = 0; i < 20; i++) if (hashes[slot * 20 + i] != b[off + i]) return false;
+            return true;
+        }
+
+        private static int slotHash(byte[] b, int off) {
+            return (b[off] & 0xff) << 24 | (b[off + 1] & 0xff) << 16 | (b[off + 2] & 0xff) << 8 | (b[off + 3] & 0xff);
+        }
+    }
+
+    // natives/.store/objects/<sha1> keeps each extracted library once; manifest maps natives jars
+    // to their extracted objects (jar.*) and objects to the versions using them (ref.*).
+    // The store is shared with other launchers: edits are replayed onto a fresh read under manifest.lock on save.
+    static class NativeCache {
+        private final File root, manifestFile;
+        private final Properties manifest = new Properties();
+        private final List<Consumer<Properties>> pending = new ArrayList<>();
+
+        NativeCache(File nativesDir) {
+            root = new File(nativesDir, ".store");
+            manifestFile = new File(root, "manifest.properties");
+            new File(root, "objects").mkdirs();
+            reload();
+        }
+
+        File object(String hash) { return new File(root, "objects/" + hash); }
+
+        synchronized void beginVersion(String ver, File dir) {
+            release(ver);
+            dir.mkdirs();
+            File[] old = dir.listFiles();
+            if (old != null) for (File f : old) if (f.isFile() || Files.isSymbolicLink(f.toPath())) f.delete();
+        }
+
+        synchronized void release(String ver) {
+            apply(m -> {
+                for (String k : m.stringPropertyNames()) {
+                    if (!k.startsWith("ref.")) continue;
+                    Set<String> vers = new LinkedHashSet<>(Arrays.asList(m.getProperty(k).split(",")));
+                    if (vers.remove(ver)) { if (vers.isEmpty()) m.remove(k); else m.setProperty(k, String.join(",", vers)); }
+                }
+            });
+        }
+
+        synchronized int linkJar(File jar, String ver, File dir) throws Exception {
+            String key = "jar." + jar.getAbsolutePath() + "|" + jar.length() + "|" + jar.lastModified();
+            String entries = manifest.getProperty(key);
+            if (entries == null || !present(entries)) { String x = extract(jar); apply(m -> m.setProperty(key, x)); entries = x; }
+            int n = 0;
+            for (String e : entries.split(";")) {
+                if (e.isEmpty()) continue;
+                String name = e.substring(0, e.lastIndexOf(':')), hash = e.substring(e.lastIndexOf(':') + 1);
+                Path link = new File(dir, name).toPath(), target = object(hash).toPath();
+                Files.deleteIfExists(link);
+                try { Files.createLink(link, target); }
+                catch (IOException | UnsupportedOperationException x) {
+                    try { Files.createSymbolicLink(link, target); } catch (IOException | UnsupportedOperationException y) { Files.copy(target, link); }
+                }
+                apply(m -> {
+                    String refs = m.getProperty("ref." + hash);
+                    if (refs == null) m.setProperty("ref." + hash, ver);
+                    else if (!Arrays.asList(refs.split(",")).contains(ver)) m.setProperty("ref." + hash, refs + "," + ver);
+                });
+                n++;
+            }
+            return n;
+        }
+
+        private boolean present(String entries) {
+            for (String e : entries.split(";")) if (!e.isEmpty() && !object(e.substring(e.lastIndexOf(':') + 1)).exists()) return false;
+            return true;
+        }
+
+        private String extract(File jar) throws Exception {
+            StringBuilder entries = new StringBuilder();
+            try (ZipFile zf = new ZipFile(jar)) {
+                Enumeration<? extends ZipEntry> en = zf.entries();
+                while (en.hasMoreElements()) {
+                    ZipEntry ze = en.nextElement();
+                    String nm = ze.getName();
+                    if (ze.isDirectory() || nm.startsWith("META-INF")) continue;
+                    if (!(nm.endsWith(".dll") || nm.endsWith(".so") || nm.endsWith(".dylib") || nm.endsWith(".jnilib"))) continue;
+                    File tmp = File.createTempFile("native", ".tmp", root);
+                    MessageDigest md = MessageDigest.getInstance("SHA-1");
+                    try (InputStream in = zf.getInputStream(ze); OutputStream out = new DigestOutputStream(new FileOutputStream(tmp), md)) {
+                        byte[] buf = new byte[8192]; int len;
+                        while ((len = in.read(buf)) > 0) out.write(buf, 0, len);
+                    }
+                    StringBuilder hash = new StringBuilder();
+                    for (byte b : md.digest()) hash.append(String.format("%02x", b));
+                    File obj = object(hash.toString());
+                    if (obj.exists()) tmp.delete(); else Files.move(tmp.toPath(), obj.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                    if (entries.length() > 0) entries.append(';');
+                    entries.append(new File(nm).getName()).append(':').append(hash);
+                }
+            }
+            return entries.toString();
+        }
+
+        @SuppressWarnings("try") // the manifest lock is only held, never used
+        synchronized void save() throws IOException {
+            try (FileChannel ch = FileChannel.open(new File(root, "manifest.lock").toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = ch.lock()) {
+                reload();
+                File tmp = new File(root, "manifest.properties.tmp");
+                try (OutputStream out = new FileOutputStream(tmp)) { manifest.store(out, "CTXLauncher shared natives"); }
+                Files.move(tmp.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                pending.clear();
+            }
+        }
+
+        private void apply(Consumer<Properties> edit) { edit.accept(manifest); pending.add(edit); }
+
+        // On-disk manifest plus this instance's unsaved edits
+        private void reload() {
+            manifest.clear();
+            if (manifestFile.exists()) try (InputStream in = new FileInputStream(manifestFile)) { manifest.load(in); } catch (IOException e) { manifest.clear(); }
+            for (Consumer<Properties> edit : pending) edit.accept(manifest);
+        }
+    }
+
     private void findJars(File dir, StringBuilder sb) {
         if (dir == null || !dir.exists()) return;
         File[] files = dir.listFiles();
@@ -673,29 +998,84 @@ public class CTXLauncher {
         return j.exists() ? j.getAbsolutePath() : "java";
     }
 
-    private String downloadString(String url) throws Exception {
+    // Heap reads, not mappings: a mapping lives until GC and keeps the file locked on Windows
+    private static ByteBuffer readBuffer(File f) throws IOException { return ByteBuffer.wrap(Files.readAllBytes(f.toPath())); }
+
+    private static String readUtf8(File f) throws IOException { return new String(Files.readAllBytes(f.toPath()), StandardCharsets.UTF_8); }
+
+    private InputStream openStream(String url) throws Exception {
         HttpURLConnection c = (HttpURLConnection) URI.create(url).toURL().openConnection();
         c.setConnectTimeout(DOWNLOAD_TIMEOUT);
         c.setReadTimeout(DOWNLOAD_TIMEOUT);
         c.setRequestProperty("User-Agent", LAUNCHER_NAME);
-        try (BufferedReader r = new BufferedReader(new InputStreamReader(c.getInputStream(), "UTF-8"))) {
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while ((line = r.readLine()) != null) sb.append(line).append("\n");
-            return sb.toString();
-        } finally { c.disconnect(); }
+        c.setRequestProperty("Accept-Encoding", "gzip, deflate");
+        return body(c);
+    }
+
+    // Decodes gzip/deflate on the fly; only JSON metadata asks for it, jars and objects are already compressed
+    private static InputStream body(HttpURLConnection c) throws IOException {
+        String enc = c.getContentEncoding() == null ? "" : c.getContentEncoding().trim().toLowerCase();
+        if (enc.equals("gzip") || enc.equals("x-gzip")) return new GZIPInputStream(c.getInputStream(), 8192);
+        if (enc.equals("deflate")) return new InflaterInputStream(c.getInputStream());
+        return c.getInputStream();
     }
 
-    private void downloadFile(String url, File dest) throws Exception {
+    private void downloadFile(String url, File dest) throws Exception { downloadFile(url, dest, null); }
+
+    // Single-flight per destination: concurrent callers wait on the first caller's download
+    @SuppressWarnings("try") // the region lock is only held, never used
+    private void downloadFile(String url, File dest, String sha1) throws Exception {
+        String key = dest.getAbsolutePath();
+        CompletableFuture<Void> mine = new CompletableFuture<>();
+        CompletableFuture<Void> other = inFlight.putIfAbsent(key, mine);
+        if (other != null) {
+            try { other.get(); } catch (ExecutionException e) { throw new IOException("Download failed: " + e.getCause().getMessage(), e.getCause()); }
+            return;
+        }
+        try {
+            boolean existed = dest.exists();
+            int stripe = (key.hashCode() & 0x7fffffff) % lockStripes.length;
+            // Stripe monitor guards our own JVM, the region lock guards other launchers on the same .minecraft
+            synchronized (lockStripes[stripe]) {
+                try (FileLock ignored = lockChannel(dest).lock(stripe, 1, false)) {
+                    if (existed || !dest.exists()) transfer(url, dest, sha1);
+                }
+            }
+            mine.complete(null);
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally { inFlight.remove(key, mine); }
+    }
+
+    private synchronized FileChannel lockChannel(File dest) throws IOException {
+        // Store objects are shared between game dirs, so they lock on the store itself
+        File root = storeDir != null && dest.toPath().toAbsolutePath().normalize().startsWith(storeDir.toPath().toAbsolutePath().normalize()) ? storeDir : gameDirectory;
+        FileChannel ch = lockChannels.get(root);
+        if (ch == null) {
+            // Never closed: closing any handle releases all of this process's locks on the file
+            ch = FileChannel.open(new File(root, ".ctx-downloads.lock").toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            lockChannels.put(root, ch);
+        }
+        return ch;
+    }
+
+    private void transfer(String url, File dest, String sha1) throws Exception {
         HttpURLConnection c = (HttpURLConnection) URI.create(url).toURL().openConnection();
         c.setConnectTimeout(DOWNLOAD_TIMEOUT);
         c.setReadTimeout(DOWNLOAD_TIMEOUT);
         c.setRequestProperty("User-Agent", LAUNCHER_NAME);
+        if (url.endsWith(".json")) c.setRequestProperty("Accept-Encoding", "gzip, deflate");
         if (c.getResponseCode() != 200) throw new Exception("HTTP " + c.getResponseCode());
         dest.getParentFile().mkdirs();
-        try (InputStream in = c.getInputStream(); FileOutputStream out = new FileOutputStream(dest)) {
-            byte[] buf = new byte[8192]; int len;
-            while ((len = in.read(buf)) > 0) out.write(buf, 0, len);
-        } finally { c.disconnect(); }
+        File part = new File(dest.getPath() + ".part");
+        try {
+            try (InputStream in = body(c); FileOutputStream out = new FileOutputStream(part)) {
+                byte[] buf = new byte[8192]; int len;
+                while ((len = in.read(buf)) > 0) out.write(buf, 0, len);
+            }
+            if (sha1 != null && !sha1.equalsIgnoreCase(sha1Hex(part))) throw new IOException("SHA-1 mismatch: " + url);
+            Files.move(part.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally { part.delete(); c.disconnect(); }
     }
 }
@@ -16,14 +16,20 @@ import javax.swing.border.*;
 import javax.swing.event.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
 import java.io.*;
 import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
 import java.nio.file.*;
+import java.nio.file.attribute.*;
 import java.security.*;
 import java.util.*;
 import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.*;
+import java.util.function.*;
 import java.util.regex.*;
 import java.util.zip.*;
 import javax.net.ssl.*;
@@ -33,13 +39,32 @@ public class CTXLauncher {
     // ═══════════════════════════════════════════════════════════════════════════════
     // CONSTANTS
     // ═══════════════════════════════════════════════════════════════════════════════
-    private static final String VERSION_MANIFEST_URL = "https://launchermeta.mojang.com/mc/game/version_manifest.json";
-    private static final String RESOURCES_URL = "https://resources.download.minecraft.net/";
+    private static final String VERSION_MANIFEST_URL = System.getProperty("ctx.manifest", "https://launchermeta.mojang.com/mc/game/version_manifest.json");
+    private static final String RESOURCES_URL = System.getProperty("ctx.resources", "https://resources.download.minecraft.net/");
     private static final String LAUNCHER_NAME = "CTXLauncher";
     private static final String LAUNCHER_VERSION = "0.1";
     
     private static final int DOWNLOAD_TIMEOUT = 30000;
     private static final int DOWNLOAD_THREADS = 8;
+    private static final int DOWNLOAD_LOCK_STRIPES = 256;
+    private static final long PREFETCH_BYTES_PER_SECOND = 2 * 1024 * 1024;
+    private static final int PREFETCH_DELAY_MS = 750;
+    private static final long SYNC_BYTES_PER_SECOND = 1024 * 1024;
+    private static final int SYNC_INTERVAL_MINUTES = 30;
+    private static final int SYNC_VERIFY_PREFIXES = 8;
+    private static final String DEFAULT_JVM_ARGS = "-XX:+UseG1GC -XX:+UnlockExperimentalVMOptions -XX:G1NewSizePercent=20";
+    private static final long DEFAULT_MONITOR_INTERVAL_MS = 2000;
+    private static final long PREWARM_TIMEOUT_SECONDS = 20;
+    private static final String DOWNLOAD_THREAD_PREFIX = "ctx-download-";
+    private static final long STARTUP_LEARN_MAX_MS = 120_000;
+    private static final String DEFAULT_STARTUP_MILESTONES =
+        "lwjgl=Backend library: LWJGL|LWJGL Version;reload=Reloading ResourceManager;menu=Sound engine started";
+    private static final String DEFAULT_CRITICAL_ASSETS = "icons/,pack.mcmeta,minecraft/font/,minecraft/lang/,minecraft/textures/,minecraft/shaders/";
+    private static final long MANIFEST_MAX_AGE_MS = 2L * SYNC_INTERVAL_MINUTES * 60 * 1000;
+    private static final long STALE_PART_MS = 60 * 60 * 1000;
+    // Cached per-plan files (CDS archives, merged classpaths) unused this long are no longer open in
+    // any running game
+    private static final long STALE_CACHE_MS = 24 * 60 * 60 * 1000;
     
     // ═══════════════════════════════════════════════════════════════════════════════
     // DIRECTORIES
@@ -50,6 +75,16 @@ public class CTXLauncher {
     private File assetsDir;
     private File nativesDir;
     
+    // Optional content-addressed store shared by every game directory
+    private File contentStoreDir = new File(System.getProperty("ctx.store",
+        System.getProperty("user.home") + "/.ctxlauncher/store"));
+    private boolean useContentStore = System.getProperty("ctx.store") != null;
+    private ContentStore contentStore;
+    private NativeCache nativeCache;
+    private InstalledIndex installedIndex;
+    private CompletableFuture<Void> directoriesReady = CompletableFuture.completedFuture(null);
+    private File installedGameDirectory;
+    
     // ═══════════════════════════════════════════════════════════════════════════════
     // UI COMPONENTS
     // ═══════════════════════════════════════════════════════════════════════════════
@@ -59,15 +94,38 @@ public class CTXLauncher {
     private JSlider ramSlider;
     private JComboBox<String> versionTypeCombo;
     private JComboBox<String> versionCombo;
+    private final VersionListModel versionModel = new VersionListModel();
+    private JTextField versionSearchField;
     private MojangPlayButton playButton;
     private JButton refreshButton;
     private JProgressBar progressBar;
     private JLabel statusLabel;
     private JTextArea logArea;
+    private final StringBuilder pendingLog = new StringBuilder();
     private JCheckBox showSnapshotsCheck;
     private JCheckBox showOldVersionsCheck;
     private JTextField gameDirField;
     private JTextField jvmArgsField;
+    private JTextField bandwidthField;
+    private JCheckBox streamingLaunchCheck;
+    private JTextField criticalAssetsField;
+    private JTextField monitorIntervalField;
+    private JTextField milestonesField;
+    private JComboBox<JvmProfile> jvmProfileCombo;
+    private JCheckBox gameCdsCheck;
+    private JCheckBox consolidatedClasspathCheck;
+    private JCheckBox prewarmCheck;
+    private JTextField cpuSetField;
+    private JSpinner niceSpinner;
+    private JComboBox<String> ioPriorityCombo;
+    private MachineProfile machineProfile;
+    private volatile long playPressedNanos;
+    private MonitorChart monitorChart;
+    private JLabel monitorStatsLabel;
+    private volatile GameSupervisor gameSupervisor;
+    private volatile String lastSessionSummary;
+    private JCheckBox contentStoreCheck;
+    private JTextField contentStoreField;
     
     // ═══════════════════════════════════════════════════════════════════════════════
     // DATA
@@ -75,11 +133,62 @@ public class CTXLauncher {
     private Map<String, VersionInfo> versionCache = new HashMap<>();
     private List<VersionInfo> allVersions = new ArrayList<>();
     private ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final ExecutorService prefetchPool = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ctx-prefetch");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    private volatile Prefetch activePrefetch;
+    private final AtomicInteger runningGames = new AtomicInteger(0);
+    // Streaming launches keep downloading assets after isDownloading is cleared
+    private final AtomicInteger backgroundInstalls = new AtomicInteger(0);
+    
+    // Download worker demotion while a game runs: every change, including a new worker picking up
+    // the current state, runs in order on this one thread
+    private final ExecutorService demotionExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "ctx-demote");
+        t.setDaemon(true);
+        return t;
+    });
+    private boolean downloadsDemoted; // only touched on the demotion thread
+    
+    // Idle-time sync: paused whenever the launcher is installing or a game is running
+    private final ScheduledExecutorService syncScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ctx-sync");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    
+    // Every download draws from one global bucket through a lane carrying its priority class
+    private final BandwidthLimiter bandwidthLimiter = new BandwidthLimiter();
+    private final DownloadLane criticalLane = new DownloadLane(bandwidthLimiter, Priority.LAUNCH_CRITICAL, 0);
+    private final DownloadLane syncLane = new DownloadLane(bandwidthLimiter, Priority.BACKGROUND, SYNC_BYTES_PER_SECOND);
+    private final DownloadLane streamingLane = new DownloadLane(bandwidthLimiter, Priority.PREFETCH, 0);
+    // Global download budget shared by single launches and batch installs
+    private final DownloadScheduler downloadPool = new DownloadScheduler(DOWNLOAD_THREADS, bandwidthLimiter, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable r) {
+            // Named so the workers can be found in /proc and demoted while a game runs
+            return new Thread(() -> {
+                onDownloadWorkerStart();
+                r.run();
+            }, DOWNLOAD_THREAD_PREFIX + count.incrementAndGet());
+        }
+    });
     private volatile boolean isDownloading = false;
     private AtomicInteger downloadedFiles = new AtomicInteger(0);
     private AtomicInteger totalFiles = new AtomicInteger(0);
     private AtomicInteger failedFiles = new AtomicInteger(0);
     
+    // Single-flight: concurrent requests for the same destination share one download
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> inFlightDownloads = new ConcurrentHashMap<>();
+    private final Object[] downloadLockStripes = new Object[DOWNLOAD_LOCK_STRIPES];
+    private final Map<File, FileChannel> downloadLockChannels = new HashMap<>();
+    
     // Version info container
     private static class VersionInfo {
         String id;
@@ -101,12 +210,40 @@ public class CTXLauncher {
     }
     
     public CTXLauncher() {
-        initGameDirectory();
+        for (int i = 0; i < downloadLockStripes.length; i++) {
+            downloadLockStripes[i] = new Object();
+        }
+        // Directory setup (stores, natives manifest, file index) runs while the UI is built;
+        // everything that touches them waits on directoriesReady. The manifest load updates the
+        // Play button and status bar, so it starts once they exist.
+        resolveGameDirectory();
+        directoriesReady = CompletableFuture.runAsync(this::prepareDirectories, executor);
         createUI();
+        StartupTrace.mark("ui-built");
         loadVersionManifest();
+        
+        syncLane.setPauseWhen(() -> isDownloading || runningGames.get() > 0);
+        syncScheduler.scheduleWithFixedDelay(this::backgroundSync, 2, SYNC_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+    
+    // Headless instance for command-line modes: directories only, no UI or background work
+    private CTXLauncher(boolean headless) {
+        for (int i = 0; i < downloadLockStripes.length; i++) {
+            downloadLockStripes[i] = new Object();
+        }
+        initGameDirectory();
     }
     
     private void initGameDirectory() {
+        resolveGameDirectory();
+        prepareDirectories();
+    }
+    
+    private void awaitDirectories() {
+        directoriesReady.join();
+    }
+    
+    private void resolveGameDirectory() {
         String os = System.getProperty("os.name").toLowerCase();
         String userHome = System.getProperty("user.home");
         
@@ -122,13 +259,31 @@ public class CTXLauncher {
         librariesDir = new File(gameDirectory, "libraries");
         assetsDir = new File(gameDirectory, "assets");
         nativesDir = new File(gameDirectory, "natives");
-        
+    }
+    
+    private void prepareDirectories() {
         // Create directories
         versionsDir.mkdirs();
         new File(assetsDir, "indexes").mkdirs();
         new File(assetsDir, "objects").mkdirs();
         librariesDir.mkdirs();
         nativesDir.mkdirs();
+        
+        // Libraries and asset objects resolve through the shared store when enabled
+        contentStore = useContentStore ? new ContentStore(contentStoreDir) : null;
+        nativeCache = new NativeCache(nativesDir);
+        
+        if (installedIndex == null || !gameDirectory.equals(installedGameDirectory)) {
+            if (installedIndex != null) installedIndex.close();
+            installedIndex = new InstalledIndex(this::onInstalledFileDeleted,
+                new File(assetsDir, "objects"), versionsDir, librariesDir);
+            installedIndex.start();
+            installedGameDirectory = gameDirectory;
+        }
+    }
+    
+    private boolean isInstalled(String path) {
+        return installedIndex.contains(new File(path));
     }
     
     private void createUI() {
@@ -158,9 +313,23 @@ public class CTXLauncher {
         tabbedPane.setBackground(new Color(50, 50, 55));
         tabbedPane.setForeground(Color.WHITE);
         
+        // Settings and Log are built on first selection; until then settings read their defaults
+        // and log lines wait in pendingLog
         tabbedPane.addTab("Play", createPlayPanel());
-        tabbedPane.addTab("Settings", createSettingsPanel());
-        tabbedPane.addTab("Log", createLogPanel());
+        tabbedPane.addTab("Settings", createPlaceholderPanel());
+        tabbedPane.addTab("Log", createPlaceholderPanel());
+        tabbedPane.addTab("Monitor", createPlaceholderPanel());
+        tabbedPane.addChangeListener(e -> {
+            int index = tabbedPane.getSelectedIndex();
+            String title = tabbedPane.getTitleAt(index);
+            if (title.equals("Settings") && jvmArgsField == null) {
+                tabbedPane.setComponentAt(index, createSettingsPanel());
+            } else if (title.equals("Log") && logArea == null) {
+                tabbedPane.setComponentAt(index, createLogPanel());
+            } else if (title.equals("Monitor") && monitorChart == null) {
+                tabbedPane.setComponentAt(index, createMonitorPanel());
+            }
+        });
         
         mainPanel.add(tabbedPane, BorderLayout.CENTER);
         
@@ -169,9 +338,21 @@ public class CTXLauncher {
         mainPanel.add(bottomPanel, BorderLayout.SOUTH);
         
         frame.setContentPane(mainPanel);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                StartupTrace.mark("first-frame");
+            }
+        });
         frame.setVisible(true);
     }
     
+    private JPanel createPlaceholderPanel() {
+        JPanel panel = new JPanel();
+        panel.setBackground(new Color(50, 50, 55));
+        return panel;
+    }
+    
     private JPanel createHeaderPanel() {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setOpaque(false);
@@ -222,11 +403,24 @@ public class CTXLauncher {
         panel.add(versionTypeLabel, gbc);
         
         gbc.gridx = 1; gbc.gridwidth = 2;
+        JPanel filterPanel = new JPanel(new BorderLayout(5, 0));
+        filterPanel.setOpaque(false);
+        
         versionTypeCombo = new JComboBox<>(new String[]{"Release", "Snapshot", "Old Beta", "Old Alpha", "All"});
         versionTypeCombo.setBackground(new Color(20, 60, 120));
         versionTypeCombo.setForeground(new Color(100, 180, 255));
         versionTypeCombo.addActionListener(e -> filterVersions());
-        panel.add(versionTypeCombo, gbc);
+        filterPanel.add(versionTypeCombo, BorderLayout.WEST);
+        
+        versionSearchField = createTextField("");
+        versionSearchField.setToolTipText("Search versions by id prefix");
+        versionSearchField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { filterVersions(); }
+            public void removeUpdate(DocumentEvent e) { filterVersions(); }
+            public void changedUpdate(DocumentEvent e) { filterVersions(); }
+        });
+        filterPanel.add(versionSearchField, BorderLayout.CENTER);
+        panel.add(filterPanel, gbc);
         
         // Version Selector
         gbc.gridx = 0; gbc.gridy = 2; gbc.gridwidth = 1;
@@ -234,10 +428,11 @@ public class CTXLauncher {
         panel.add(versionLabel, gbc);
         
         gbc.gridx = 1;
-        versionCombo = new JComboBox<>();
+        versionCombo = new JComboBox<>(versionModel);
         versionCombo.setBackground(new Color(20, 60, 120));
         versionCombo.setForeground(new Color(100, 180, 255));
         versionCombo.setPreferredSize(new Dimension(200, 30));
+        versionCombo.addActionListener(e -> schedulePrefetch());
         panel.add(versionCombo, gbc);
         
         gbc.gridx = 2; gbc.gridwidth = 1;
@@ -246,7 +441,7 @@ public class CTXLauncher {
         refreshButton.setBackground(new Color(20, 60, 120));
         refreshButton.setForeground(new Color(100, 180, 255));
         refreshButton.setFocusPainted(false);
-        refreshButton.addActionListener(e -> loadVersionManifest());
+        refreshButton.addActionListener(e -> loadVersionManifest(true));
         panel.add(refreshButton, gbc);
         
         // RAM Allocation
@@ -287,6 +482,7 @@ public class CTXLauncher {
     }
     
     private JPanel createSettingsPanel() {
+        awaitDirectories();
         JPanel panel = new JPanel(new GridBagLayout());
         panel.setBackground(new Color(50, 50, 55));
         panel.setBorder(new EmptyBorder(20, 20, 20, 20));
@@ -327,12 +523,61 @@ public class CTXLauncher {
         panel.add(jvmLabel, gbc);
         
         gbc.gridx = 1; gbc.gridwidth = 3;
-        jvmArgsField = createTextField("-XX:+UseG1GC -XX:+UnlockExperimentalVMOptions -XX:G1NewSizePercent=20");
+        jvmArgsField = createTextField(DEFAULT_JVM_ARGS);
         jvmArgsField.setToolTipText("Additional JVM arguments for performance tuning");
         panel.add(jvmArgsField, gbc);
         
+        // Bandwidth limit shared by all downloads
+        gbc.gridx = 0; gbc.gridy = 2; gbc.gridwidth = 1;
+        JLabel bandwidthLabel = createLabel("Bandwidth (KB/s):");
+        panel.add(bandwidthLabel, gbc);
+        
+        gbc.gridx = 1; gbc.gridwidth = 3;
+        bandwidthField = createTextField("0");
+        bandwidthField.setToolTipText("Global download limit, 0 = unlimited. Launch downloads always preempt prefetch and background sync");
+        bandwidthField.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) { applyBandwidthLimit(); }
+            public void removeUpdate(DocumentEvent e) { applyBandwidthLimit(); }
+            public void changedUpdate(DocumentEvent e) { applyBandwidthLimit(); }
+        });
+        panel.add(bandwidthField, gbc);
+        
+        // Shared content store
+        gbc.gridx = 0; gbc.gridy = 3; gbc.gridwidth = 1;
+        contentStoreCheck = new JCheckBox("Shared Store:", useContentStore);
+        contentStoreCheck.setBackground(new Color(50, 50, 55));
+        contentStoreCheck.setForeground(Color.WHITE);
+        contentStoreCheck.setToolTipText("Keep one SHA-1 keyed copy of libraries and assets, hard-linked into each game directory");
+        panel.add(contentStoreCheck, gbc);
+        
+        gbc.gridx = 1; gbc.gridwidth = 2;
+        contentStoreField = createTextField(contentStoreDir.getAbsolutePath());
+        contentStoreField.setEditable(false);
+        panel.add(contentStoreField, gbc);
+        
+        gbc.gridx = 3; gbc.gridwidth = 1;
+        JButton storeBrowseButton = new JButton("Browse");
+        storeBrowseButton.setBackground(new Color(20, 60, 120));
+        storeBrowseButton.setForeground(new Color(100, 180, 255));
+        storeBrowseButton.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser(contentStoreDir);
+            chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+            if (chooser.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION) {
+                contentStoreDir = chooser.getSelectedFile();
+                contentStoreField.setText(contentStoreDir.getAbsolutePath());
+                initGameDirectory();
+            }
+        });
+        panel.add(storeBrowseButton, gbc);
+        
+        contentStoreCheck.addActionListener(e -> {
+            useContentStore = contentStoreCheck.isSelected();
+            initGameDirectory();
+            log(useContentStore ? "Using shared store: " + contentStoreDir : "Shared store disabled");
+        });
+        
         // Version filters
-        gbc.gridx = 0; gbc.gridy = 2; gbc.gridwidth = 2;
+        gbc.gridx = 0; gbc.gridy = 4; gbc.gridwidth = 2;
         showSnapshotsCheck = new JCheckBox("Show Snapshots");
         showSnapshotsCheck.setBackground(new Color(50, 50, 55));
         showSnapshotsCheck.setForeground(Color.WHITE);
@@ -346,8 +591,21 @@ public class CTXLauncher {
         showOldVersionsCheck.addActionListener(e -> filterVersions());
         panel.add(showOldVersionsCheck, gbc);
         
+        // Launch-while-downloading
+        gbc.gridx = 0; gbc.gridy = 5; gbc.gridwidth = 1;
+        streamingLaunchCheck = new JCheckBox("Stream Assets:");
+        streamingLaunchCheck.setBackground(new Color(50, 50, 55));
+        streamingLaunchCheck.setForeground(Color.WHITE);
+        streamingLaunchCheck.setToolTipText("Start the game once the critical assets are present; the rest keep downloading");
+        panel.add(streamingLaunchCheck, gbc);
+        
+        gbc.gridx = 1; gbc.gridwidth = 3;
+        criticalAssetsField = createTextField(DEFAULT_CRITICAL_ASSETS);
+        criticalAssetsField.setToolTipText("Comma-separated asset name prefixes needed before the game starts");
+        panel.add(criticalAssetsField, gbc);
+        
         // Open folders buttons
-        gbc.gridx = 0; gbc.gridy = 3; gbc.gridwidth = 1;
+        gbc.gridx = 0; gbc.gridy = 6; gbc.gridwidth = 1;
         JButton openGameDirBtn = new JButton("Open Game Folder");
         openGameDirBtn.setBackground(new Color(20, 60, 120));
         openGameDirBtn.setForeground(new Color(100, 180, 255));
@@ -373,13 +631,199 @@ public class CTXLauncher {
         });
         panel.add(openVersionsBtn, gbc);
         
+        gbc.gridx = 2;
+        JButton batchInstallBtn = new JButton("Batch Install...");
+        batchInstallBtn.setBackground(new Color(20, 60, 120));
+        batchInstallBtn.setForeground(new Color(100, 180, 255));
+        batchInstallBtn.setToolTipText("Install several versions with shared, deduplicated downloads");
+        batchInstallBtn.addActionListener(e -> showBatchInstallDialog());
+        panel.add(batchInstallBtn, gbc);
+        
+        gbc.gridx = 3;
+        JButton cleanUpBtn = new JButton("Clean Up...");
+        cleanUpBtn.setBackground(new Color(20, 60, 120));
+        cleanUpBtn.setForeground(new Color(100, 180, 255));
+        cleanUpBtn.setToolTipText("Delete libraries, assets and natives no installed version uses");
+        cleanUpBtn.addActionListener(e -> collectGarbage());
+        panel.add(cleanUpBtn, gbc);
+        
+        // Game monitor sampling
+        gbc.gridx = 0; gbc.gridy = 7; gbc.gridwidth = 1;
+        panel.add(createLabel("Monitor Interval (s):"), gbc);
+        
+        gbc.gridx = 1; gbc.gridwidth = 3;
+        monitorIntervalField = createTextField(String.valueOf(DEFAULT_MONITOR_INTERVAL_MS / 1000));
+        monitorIntervalField.setToolTipText("How often a running game's CPU, memory and threads are sampled; applies to the next launch");
+        panel.add(monitorIntervalField, gbc);
+        
+        // Startup timing milestones matched against game output
+        gbc.gridx = 0; gbc.gridy = 8; gbc.gridwidth = 1;
+        panel.add(createLabel("Startup Milestones:"), gbc);
+        
+        gbc.gridx = 1; gbc.gridwidth = 3;
+        milestonesField = createTextField(DEFAULT_STARTUP_MILESTONES);
+        milestonesField.setToolTipText("name=regex;... matched in order against game output to time startup to the main menu");
+        panel.add(milestonesField, gbc);
+        
+        // JVM tuning profile; anything but Custom replaces the JVM Arguments field
+        gbc.gridx = 0; gbc.gridy = 10; gbc.gridwidth = 1;
+        panel.add(createLabel("JVM Profile:"), gbc);
+        
+        gbc.gridx = 1; gbc.gridwidth = 3;
+        jvmProfileCombo = new JComboBox<>(JvmProfile.values());
+        jvmProfileCombo.setToolTipText("Derive heap, collector and flags from this machine's RAM and cores; Custom uses JVM Arguments as typed");
+        jvmProfileCombo.addActionListener(e -> applyJvmProfile());
+        panel.add(jvmProfileCombo, gbc);
+        
+        // Game class data sharing
+        gbc.gridx = 0; gbc.gridy = 11; gbc.gridwidth = 1;
+        gameCdsCheck = new JCheckBox("Game CDS Archive", true);
+        gameCdsCheck.setBackground(new Color(50, 50, 55));
+        gameCdsCheck.setForeground(Color.WHITE);
+        gameCdsCheck.setToolTipText("Archive the classes a version loads on its first launch and map them on later launches");
+        panel.add(gameCdsCheck, gbc);
+        
+        gbc.gridx = 1;
+        consolidatedClasspathCheck = new JCheckBox("Consolidated Classpath");
+        consolidatedClasspathCheck.setBackground(new Color(50, 50, 55));
+        consolidatedClasspathCheck.setForeground(Color.WHITE);
+        consolidatedClasspathCheck.setToolTipText("Launch from one uncompressed jar merged from the version's libraries, cached per launch plan");
+        panel.add(consolidatedClasspathCheck, gbc);
+        
+        gbc.gridx = 2;
+        prewarmCheck = new JCheckBox("Pre-warm Files");
+        prewarmCheck.setBackground(new Color(50, 50, 55));
+        prewarmCheck.setForeground(Color.WHITE);
+        prewarmCheck.setToolTipText("Read the classpath jars and learned startup assets into the OS cache before launching");
+        panel.add(prewarmCheck, gbc);
+        
+        // Game CPU set and priorities (Linux)
+        gbc.gridx = 0; gbc.gridy = 12; gbc.gridwidth = 1;
+        panel.add(createLabel("Game Scheduling:"), gbc);
+        
+        gbc.gridx = 1;
+        cpuSetField = createTextField("");
+        cpuSetField.setToolTipText("CPUs the game may run on, e.g. 0-3,8 (taskset or a systemd-run scope); empty = all");
+        panel.add(cpuSetField, gbc);
+        
+        gbc.gridx = 2;
+        niceSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 19, 1));
+        niceSpinner.setToolTipText("Nice value for the game, 0 = normal, 19 = lowest");
+        panel.add(niceSpinner, gbc);
+        
+        gbc.gridx = 3;
+        ioPriorityCombo = new JComboBox<>(LinuxScheduling.IO_PRIORITIES);
+        ioPriorityCombo.setToolTipText("Game disk priority through ionice");
+        panel.add(ioPriorityCombo, gbc);
+        cpuSetField.setEnabled(LinuxScheduling.SUPPORTED);
+        niceSpinner.setEnabled(LinuxScheduling.SUPPORTED);
+        ioPriorityCombo.setEnabled(LinuxScheduling.SUPPORTED);
+        
         // Spacer
-        gbc.gridx = 0; gbc.gridy = 4; gbc.gridwidth = 4; gbc.weighty = 1.0;
+        gbc.gridx = 0; gbc.gridy = 13; gbc.gridwidth = 4; gbc.weighty = 1.0;
         panel.add(Box.createVerticalGlue(), gbc);
         
         return panel;
     }
     
+    private void applyBandwidthLimit() {
+        try {
+            long kbPerSecond = Long.parseLong(bandwidthField.getText().trim());
+            bandwidthLimiter.setBytesPerSecond(Math.max(0, kbPerSecond) * 1024);
+        } catch (NumberFormatException e) {
+            // Keep the previous limit while the field is being edited
+        }
+    }
+    
+    // Settings as seen before the Settings tab has been opened for the first time
+    private String jvmArgs() {
+        return jvmArgsField == null ? DEFAULT_JVM_ARGS : jvmArgsField.getText();
+    }
+    
+    private String gameCpuSet() {
+        return cpuSetField == null ? "" : cpuSetField.getText().trim();
+    }
+    
+    private int gameNice() {
+        return niceSpinner == null ? 0 : (Integer) niceSpinner.getValue();
+    }
+    
+    private int gameIoPriority() {
+        return ioPriorityCombo == null ? 0 : ioPriorityCombo.getSelectedIndex();
+    }
+    
+    private boolean isPrewarmEnabled() {
+        return prewarmCheck != null && prewarmCheck.isSelected();
+    }
+    
+    private boolean isConsolidatedClasspath() {
+        return consolidatedClasspathCheck != null && consolidatedClasspathCheck.isSelected();
+    }
+    
+    private boolean isGameCdsEnabled() {
+        return gameCdsCheck == null || gameCdsCheck.isSelected();
+    }
+    
+    private boolean isStreamingLaunch() {
+        return streamingLaunchCheck != null && streamingLaunchCheck.isSelected();
+    }
+    
+    private String criticalAssetPrefixes() {
+        return criticalAssetsField == null ? DEFAULT_CRITICAL_ASSETS : criticalAssetsField.getText();
+    }
+    
+    private JvmProfile jvmProfile() {
+        return jvmProfileCombo == null ? JvmProfile.CUSTOM : (JvmProfile) jvmProfileCombo.getSelectedItem();
+    }
+    
+    private synchronized MachineProfile machineProfile() {
+        if (machineProfile == null) machineProfile = new MachineProfile(getJavaPath());
+        return machineProfile;
+    }
+    
+    // Moves the RAM slider to the profile's suggestion for the selected version; it stays adjustable
+    private void applyJvmProfile() {
+        JvmProfile selected = jvmProfile();
+        jvmArgsField.setEnabled(selected == JvmProfile.CUSTOM);
+        if (selected == JvmProfile.CUSTOM) return;
+        
+        MachineProfile machine = machineProfile();
+        JvmProfile profile = machine.resolve(selected);
+        String version = (String) versionCombo.getSelectedItem();
+        File json = version == null ? null : new File(versionsDir, version + "/" + version + ".json");
+        int requiredJava = 17;
+        if (json != null && json.isFile()) {
+            try {
+                requiredJava = requiredJavaVersion(readUtf8(json));
+            } catch (IOException e) {
+                // Assume a current version
+            }
+        }
+        int heap = Math.max(ramSlider.getMinimum(), Math.min(ramSlider.getMaximum(), machine.recommendedHeapGb(profile, requiredJava)));
+        ramSlider.setValue(heap);
+        log(String.format("JVM profile %s -> %s: %d GB heap (%d GB RAM, %d cores%s)", selected, profile, heap,
+            machine.physicalGb(), machine.cores, machine.transparentHugePages ? ", THP" : ""));
+    }
+    
+    private static int requiredJavaVersion(String json) {
+        Matcher m = Pattern.compile("\"javaVersion\"\\s*:\\s*\\{[^}]*\"majorVersion\"\\s*:\\s*(\\d+)").matcher(json);
+        return m.find() ? Integer.parseInt(m.group(1)) : 8;
+    }
+    
+    private String startupMilestones() {
+        return milestonesField == null ? DEFAULT_STARTUP_MILESTONES : milestonesField.getText();
+    }
+    
+    private long monitorIntervalMs() {
+        if (monitorIntervalField == null) return DEFAULT_MONITOR_INTERVAL_MS;
+        try {
+            double seconds = Double.parseDouble(monitorIntervalField.getText().trim());
+            return Math.max(250, (long) (seconds * 1000));
+        } catch (NumberFormatException e) {
+            return DEFAULT_MONITOR_INTERVAL_MS;
+        }
+    }
+    
     private JPanel createLogPanel() {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBackground(new Color(50, 50, 55));
@@ -392,6 +836,9 @@ public class CTXLauncher {
         logArea.setFont(new Font("Consolas", Font.PLAIN, 12));
         logArea.setCaretColor(Color.WHITE);
         
+        logArea.setText(pendingLog.toString());
+        pendingLog.setLength(0);
+        
         JScrollPane scrollPane = new JScrollPane(logArea);
         scrollPane.setBorder(BorderFactory.createLineBorder(new Color(70, 70, 75)));
         panel.add(scrollPane, BorderLayout.CENTER);
@@ -420,6 +867,41 @@ public class CTXLauncher {
         return panel;
     }
     
+    private JPanel createMonitorPanel() {
+        JPanel panel = new JPanel(new BorderLayout(0, 10));
+        panel.setBackground(new Color(50, 50, 55));
+        panel.setBorder(new EmptyBorder(10, 10, 10, 10));
+        
+        monitorChart = new MonitorChart();
+        monitorChart.setFont(new Font("Segoe UI", Font.PLAIN, 11));
+        monitorChart.setBorder(BorderFactory.createLineBorder(new Color(70, 70, 75)));
+        monitorChart.setSupervisor(gameSupervisor);
+        panel.add(monitorChart, BorderLayout.CENTER);
+        
+        monitorStatsLabel = new JLabel(" ");
+        monitorStatsLabel.setForeground(new Color(180, 180, 180));
+        monitorStatsLabel.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        panel.add(monitorStatsLabel, BorderLayout.SOUTH);
+        updateMonitor();
+        
+        return panel;
+    }
+    
+    // EDT only; no-op until the Monitor tab has been opened
+    private void updateMonitor() {
+        if (monitorChart == null) return;
+        GameSupervisor supervisor = gameSupervisor;
+        monitorChart.setSupervisor(supervisor);
+        List<GameSupervisor.Sample> samples = supervisor == null ? Collections.emptyList() : supervisor.samples();
+        if (!samples.isEmpty()) {
+            GameSupervisor.Sample last = samples.get(samples.size() - 1);
+            monitorStatsLabel.setText(String.format("%s  ·  PID %d  ·  up %ds  ·  %d threads  ·  %d child processes",
+                supervisor.version, supervisor.pid(), last.time / 1000, last.threads, last.descendants));
+        } else if (lastSessionSummary != null) {
+            monitorStatsLabel.setText("Last session: " + lastSessionSummary);
+        }
+    }
+    
     private JPanel createBottomPanel() {
         JPanel panel = new JPanel(new BorderLayout(10, 5));
         panel.setOpaque(false);
@@ -462,8 +944,12 @@ public class CTXLauncher {
     }
     
     private void log(String message) {
+        String timestamp = String.format("[%tT] ", new Date());
         SwingUtilities.invokeLater(() -> {
-            String timestamp = String.format("[%tT] ", new Date());
+            if (logArea == null) {
+                pendingLog.append(timestamp).append(message).append("\n");
+                return;
+            }
             logArea.append(timestamp + message + "\n");
             logArea.setCaretPosition(logArea.getDocument().getLength());
         });
@@ -488,36 +974,52 @@ public class CTXLauncher {
     // VERSION MANAGEMENT
     // ═══════════════════════════════════════════════════════════════════════════════
     private void loadVersionManifest() {
+        loadVersionManifest(false);
+    }
+    
+    private void loadVersionManifest(boolean forceNetwork) {
         setStatus("Fetching version manifest...");
         setProgress(0, "Loading versions...");
         playButton.setEnabled(false);
         
         executor.submit(() -> {
             try {
+                awaitDirectories();
                 setupSSL();
                 
-                URL url = new URL(VERSION_MANIFEST_URL);
-                HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-                conn.setRequestProperty("User-Agent", LAUNCHER_NAME + "/" + LAUNCHER_VERSION);
-                conn.setConnectTimeout(10000);
-                conn.setReadTimeout(10000);
+                SwingUtilities.invokeLater(() -> {
+                    allVersions.clear();
+                    versionCache.clear();
+                    versionModel.clear();
+                });
+                VersionFeed feed = new VersionFeed();
                 
-                BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                StringBuilder json = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    json.append(line);
+                // A manifest kept fresh by the background sync makes startup network-free
+                File cache = getManifestCacheFile();
+                if (!forceNetwork && cache.exists() && System.currentTimeMillis() - cache.lastModified() < MANIFEST_MAX_AGE_MS) {
+                    try (InputStream in = new FileInputStream(cache)) {
+                        streamManifest(in, feed);
+                    }
+                    log("Using cached version manifest");
+                } else {
+                    try {
+                        revalidateManifest(feed);
+                    } catch (IOException e) {
+                        if (!cache.exists()) throw e;
+                        // Entries already shown are skipped by id on the second pass
+                        log("Manifest fetch failed, using cached copy: " + e.getMessage());
+                        try (InputStream in = new FileInputStream(cache)) {
+                            streamManifest(in, feed);
+                        }
+                    }
                 }
-                reader.close();
                 
-                parseVersionManifest(json.toString());
+                feed.flush();
+                log("Parsed " + feed.published + " versions from manifest");
                 setProgress(100, "Ready");
-                setStatus("Loaded " + allVersions.size() + " versions");
+                setStatus("Loaded " + feed.published + " versions");
                 
-                SwingUtilities.invokeLater(() -> {
-                    filterVersions();
-                    playButton.setEnabled(true);
-                });
+                SwingUtilities.invokeLater(() -> playButton.setEnabled(!isDownloading));
                 
             } catch (Exception e) {
                 setStatus("Failed to fetch versions: " + e.getMessage());
@@ -542,63 +1044,207 @@ public class CTXLauncher {
         HttpsURLConnection.setDefaultHostnameVerifier((hostname, session) -> true);
     }
     
-    private void parseVersionManifest(String json) {
-        allVersions.clear();
-        versionCache.clear();
+    // Hands parsed manifest entries to the EDT in batches. The newest versions come first in the
+    // manifest, so the first one goes out alone and is selectable while the old alphas still download.
+    private class VersionFeed implements Consumer<VersionInfo> {
+        private List<VersionInfo> batch = new ArrayList<>();
+        private int published;
         
-        // Simple JSON parsing without external libraries
-        Pattern versionPattern = Pattern.compile(
-            "\\{\\s*\"id\"\\s*:\\s*\"([^\"]+)\"\\s*,\\s*\"type\"\\s*:\\s*\"([^\"]+)\"\\s*,\\s*\"url\"\\s*:\\s*\"([^\"]+)\"\\s*,\\s*\"time\"\\s*:\\s*\"([^\"]+)\"\\s*,\\s*\"releaseTime\"\\s*:\\s*\"([^\"]+)\"\\s*\\}"
-        );
+        @Override
+        public void accept(VersionInfo info) {
+            batch.add(info);
+            if (batch.size() >= (published == 0 ? 1 : 64)) flush();
+        }
         
-        Matcher matcher = versionPattern.matcher(json);
-        while (matcher.find()) {
-            String id = matcher.group(1);
-            String type = matcher.group(2);
-            String versionUrl = matcher.group(3);
-            String releaseTime = matcher.group(5);
-            
-            VersionInfo info = new VersionInfo(id, type, versionUrl, releaseTime);
+        void flush() {
+            if (batch.isEmpty()) return;
+            List<VersionInfo> ready = batch;
+            batch = new ArrayList<>();
+            published += ready.size();
+            SwingUtilities.invokeLater(() -> appendVersions(ready));
+        }
+    }
+    
+    private void appendVersions(List<VersionInfo> versions) {
+        boolean wasEmpty = versionModel.getSize() == 0;
+        
+        for (VersionInfo info : versions) {
+            if (versionCache.putIfAbsent(info.id, info) != null) continue;
             allVersions.add(info);
-            versionCache.put(id, info);
+            versionModel.add(info);
         }
         
-        log("Parsed " + allVersions.size() + " versions from manifest");
+        if (wasEmpty && versionModel.getSize() > 0) {
+            versionCombo.setSelectedIndex(0);
+            if (!isDownloading) playButton.setEnabled(true);
+            StartupTrace.mark("play-enabled");
+        }
+    }
+    
+    // Feeds sink one VersionInfo per manifest entry as the stream is read; returns latest.release
+    private String streamManifest(InputStream in, Consumer<VersionInfo> sink) throws IOException {
+        String[] latest = new String[1];
+        ManifestStream.read(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)),
+            member -> {
+                String release = extractJsonValue(member, "release");
+                if (release != null) latest[0] = release;
+            },
+            entry -> {
+                String id = extractJsonValue(entry, "id");
+                String url = extractJsonValue(entry, "url");
+                if (id == null || url == null) return;
+                String type = extractJsonValue(entry, "type");
+                sink.accept(new VersionInfo(id, type == null ? "" : type, url, extractJsonValue(entry, "releaseTime")));
+            });
+        return latest[0];
     }
     
     private void filterVersions() {
-        versionCombo.removeAllItems();
+        versionModel.setFilter((String) versionTypeCombo.getSelectedItem());
+        versionModel.setQuery(versionSearchField.getText().trim());
+        versionCombo.setSelectedItem(versionModel.getSize() > 0 ? versionModel.getElementAt(0) : null);
+    }
+    
+    // Combo model over every manifest entry with one index array per type. A filter switch swaps the
+    // active array and fires a single change event; search narrows it through a prefix index of the
+    // ids, sorted once and rebuilt only after new entries arrive.
+    private static class VersionListModel extends AbstractListModel<String> implements ComboBoxModel<String> {
+        private static final long serialVersionUID = 1L;
         
-        String selectedType = (String) versionTypeCombo.getSelectedItem();
+        private String[] ids = new String[1024];
+        private IntList[] listOf = new IntList[1024];
+        private int count;
+        private final IntList all = new IntList();
+        private final Map<String, IntList> byType = new HashMap<>();
+        private IntList active = all;
+        private int[] view;
+        private String query = "";
+        private int[] sortedById;
+        private Object selected;
         
-        for (VersionInfo version : allVersions) {
-            boolean include = false;
+        void add(VersionInfo info) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+                listOf = Arrays.copyOf(listOf, count * 2);
+            }
+            int index = count++;
+            IntList list = byType.computeIfAbsent(info.type, t -> new IntList());
+            ids[index] = info.id;
+            listOf[index] = list;
+            all.add(index);
+            list.add(index);
+            sortedById = null;
             
-            switch (selectedType) {
+            if (!isActive(index)) return;
+            if (view == null) {
+                fireIntervalAdded(this, active.size - 1, active.size - 1);
+            } else if (info.id.startsWith(query)) {
+                view = search();
+                fireContentsChanged(this, 0, view.length - 1);
+            }
+        }
+        
+        void clear() {
+            int size = getSize();
+            count = 0;
+            all.size = 0;
+            byType.values().forEach(list -> list.size = 0);
+            sortedById = null;
+            view = query.isEmpty() ? null : new int[0];
+            selected = null;
+            if (size > 0) fireIntervalRemoved(this, 0, size - 1);
+        }
+        
+        void setFilter(String label) {
+            IntList target = all;
+            switch (label) {
                 case "Release":
-                    include = version.type.equals("release");
+                    target = byType.computeIfAbsent("release", t -> new IntList());
                     break;
                 case "Snapshot":
-                    include = version.type.equals("snapshot");
+                    target = byType.computeIfAbsent("snapshot", t -> new IntList());
                     break;
                 case "Old Beta":
-                    include = version.type.equals("old_beta");
+                    target = byType.computeIfAbsent("old_beta", t -> new IntList());
                     break;
                 case "Old Alpha":
-                    include = version.type.equals("old_alpha");
-                    break;
-                case "All":
-                    include = true;
+                    target = byType.computeIfAbsent("old_alpha", t -> new IntList());
                     break;
             }
+            if (target == active) return;
+            active = target;
+            if (view != null) view = search();
+            fireContentsChanged(this, 0, Math.max(getSize() - 1, 0));
+        }
+        
+        void setQuery(String prefix) {
+            if (prefix.equals(query)) return;
+            query = prefix;
+            view = prefix.isEmpty() ? null : search();
+            fireContentsChanged(this, 0, Math.max(getSize() - 1, 0));
+        }
+        
+        // Matching ids from the prefix index, restricted to the active type, back in manifest order
+        private int[] search() {
+            if (sortedById == null) {
+                Integer[] order = new Integer[count];
+                for (int i = 0; i < count; i++) order[i] = i;
+                Arrays.sort(order, (a, b) -> ids[a].compareTo(ids[b]));
+                sortedById = new int[count];
+                for (int i = 0; i < count; i++) sortedById[i] = order[i];
+            }
+            
+            int lo = 0;
+            int hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (ids[sortedById[mid]].compareTo(query) < 0) lo = mid + 1;
+                else hi = mid;
+            }
             
-            if (include) {
-                versionCombo.addItem(version.id);
+            IntList matches = new IntList();
+            for (int i = lo; i < count && ids[sortedById[i]].startsWith(query); i++) {
+                if (isActive(sortedById[i])) matches.add(sortedById[i]);
             }
+            int[] result = Arrays.copyOf(matches.data, matches.size);
+            Arrays.sort(result);
+            return result;
         }
         
-        if (versionCombo.getItemCount() > 0) {
-            versionCombo.setSelectedIndex(0);
+        private boolean isActive(int index) {
+            return active == all || listOf[index] == active;
+        }
+        
+        @Override
+        public int getSize() {
+            return view != null ? view.length : active.size;
+        }
+        
+        @Override
+        public String getElementAt(int i) {
+            return ids[view != null ? view[i] : active.data[i]];
+        }
+        
+        @Override
+        public void setSelectedItem(Object item) {
+            if (Objects.equals(selected, item)) return;
+            selected = item;
+            fireContentsChanged(this, -1, -1);
+        }
+        
+        @Override
+        public Object getSelectedItem() {
+            return selected;
+        }
+    }
+    
+    private static class IntList {
+        int[] data = new int[64];
+        int size;
+        
+        void add(int value) {
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = value;
         }
     }
     
@@ -631,8 +1277,22 @@ public class CTXLauncher {
         
         final String finalUsername = username;
         final int ram = ramSlider.getValue();
+        // Read once here: the journal's owner depends on it and the checkbox may change mid-launch
+        final boolean streaming = isStreamingLaunch();
+        
+        // Take over a running prefetch of this version rather than starting from scratch
+        Prefetch prefetch = activePrefetch;
+        if (prefetch != null) {
+            if (prefetch.version.id.equals(selectedVersion)) {
+                prefetch.adopt();
+                log("Adopting in-flight prefetch of " + selectedVersion);
+            } else {
+                prefetch.cancel();
+            }
+        }
         
         isDownloading = true;
+        playPressedNanos = System.nanoTime();
         playButton.setEnabled(false);
         playButton.setText("⏳ PREPARING...");
         setStatus("Preparing " + selectedVersion + "...");
@@ -640,6 +1300,7 @@ public class CTXLauncher {
         
         executor.submit(() -> {
             try {
+                awaitDirectories();
                 setupSSL();
                 
                 String versionDir = versionsDir.getAbsolutePath() + "/" + selectedVersion;
@@ -649,25 +1310,20 @@ public class CTXLauncher {
                 
                 // Step 1: Download version JSON
                 setProgress(5, "Downloading version info...");
-                String jsonPath = versionDir + "/" + selectedVersion + ".json";
-                if (!new File(jsonPath).exists()) {
-                    downloadFile(versionInfo.url, jsonPath);
-                }
-                String versionJsonContent = new String(Files.readAllBytes(Paths.get(jsonPath)));
+                String versionJsonContent = fetchVersionJson(versionInfo);
                 log("Downloaded version JSON");
                 
-                // Step 2: Download client JAR
-                setProgress(10, "Downloading Minecraft client...");
-                String jarUrl = extractNestedJsonValue(versionJsonContent, "downloads", "client", "url");
-                String jarPath = versionDir + "/" + selectedVersion + ".jar";
-                if (jarUrl != null && !new File(jarPath).exists()) {
-                    downloadFile(jarUrl, jarPath);
-                    log("Downloaded client JAR");
-                }
+                // Warm the page cache with what is already on disk while the rest of the prep runs
+                CompletableFuture<long[]> prewarm = isPrewarmEnabled() ? startPrewarm(selectedVersion, versionJsonContent) : null;
                 
-                // Step 3: Download libraries
+                // Step 2: Plan against the install journal
+                setProgress(10, "Checking installed files...");
+                InstallJournal journal = new InstallJournal(new File(versionDir, selectedVersion + ".journal"), gameDirectory);
+                planInstall(versionInfo, versionJsonContent, journal);
+                
+                // Step 3: Download client JAR and libraries
                 setProgress(15, "Downloading libraries...");
-                downloadAllLibraries(versionJsonContent);
+                downloadAllLibraries(journal.outstandingFiles(), journal);
                 log("Libraries downloaded");
                 
                 // Step 4: Extract natives
@@ -675,10 +1331,16 @@ public class CTXLauncher {
                 extractNatives(versionJsonContent, nativesPath);
                 log("Natives extracted");
                 
-                // Step 5: Download assets
+                // Step 5: Download assets (only the critical set when streaming)
                 setProgress(40, "Downloading assets...");
-                downloadAllAssets(versionJsonContent);
+                downloadAllAssets(versionJsonContent, journal, streaming);
                 log("Assets downloaded");
+                if (journal.finish()) {
+                    log("Install journal clean");
+                }
+                if (!streaming) journal.close();
+                
+                if (prewarm != null) awaitPrewarm(prewarm);
                 
                 // Launch!
                 setProgress(100, "Launching...");
@@ -701,15 +1363,131 @@ public class CTXLauncher {
         });
     }
     
+    private CompletableFuture<long[]> startPrewarm(String version, String versionJson) {
+        List<String> classpath = new ArrayList<>();
+        classpath.add(versionsDir.getAbsolutePath() + "/" + version + "/" + version + ".jar");
+        addLibrariesToClasspath(versionJson, classpath);
+        List<File> files = new ArrayList<>();
+        for (String path : classpath) files.add(new File(path));
+        for (String hash : PageCacheWarmer.loadStartupAssets(startupAssetsFile(version))) {
+            files.add(new File(assetPath(hash)));
+        }
+        return PageCacheWarmer.warm(files);
+    }
+    
+    // Bounded so a hung network mount never holds up the launch
+    private void awaitPrewarm(CompletableFuture<long[]> prewarm) {
+        try {
+            long[] result = prewarm.get(PREWARM_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            log(String.format("Pre-warmed %d files (%d MB) in %d ms", result[0], result[1] >> 20, result[2]));
+        } catch (TimeoutException e) {
+            log("Pre-warm still running after " + PREWARM_TIMEOUT_SECONDS + "s, launching anyway");
+        } catch (InterruptedException | ExecutionException e) {
+            log("Pre-warm failed: " + e.getMessage());
+        }
+    }
+    
+    private File startupAssetsFile(String version) {
+        return new File(versionsDir, version + "/startup-assets.txt");
+    }
+    
+    private String fetchVersionJson(VersionInfo versionInfo) throws Exception {
+        String jsonPath = versionsDir.getAbsolutePath() + "/" + versionInfo.id + "/" + versionInfo.id + ".json";
+        if (!isInstalled(jsonPath)) {
+            downloadFile(versionInfo.url, jsonPath);
+        }
+        return readUtf8(new File(jsonPath));
+    }
+    
     // ═══════════════════════════════════════════════════════════════════════════════
     // LIBRARY DOWNLOAD
     // ═══════════════════════════════════════════════════════════════════════════════
-    private void downloadAllLibraries(String jsonContent) throws Exception {
+    // Every item is a journaled {dest, url, sha1, state}: client jar and libraries
+    private void downloadAllLibraries(List<String[]> items, InstallJournal journal) throws Exception {
+        int total = items.size();
+        int current = 0;
+        
+        for (String[] item : items) {
+            try {
+                downloadJournaled(item, journal, criticalLane);
+            } catch (DownloadCancelledException e) {
+                throw e;
+            } catch (Exception e) {
+                log("Failed to download: " + new File(item[0]).getName());
+            }
+            
+            current++;
+            int progress = 15 + (20 * current / Math.max(total, 1));
+            final int c = current;
+            final int t = total;
+            SwingUtilities.invokeLater(() -> {
+                setProgress(progress, "Libraries: " + c + "/" + t);
+            });
+        }
+    }
+    
+    // Leaves the journal holding this launch's outstanding work. A clean journal skips the scan
+    // entirely, an unfinished one resumes from its own records, anything else gets a fresh plan
+    // written before the first download.
+    private void planInstall(VersionInfo info, String jsonContent, InstallJournal journal) throws Exception {
+        String planId = InstallJournal.planId(jsonContent);
+        String jarPath = versionsDir.getAbsolutePath() + "/" + info.id + "/" + info.id + ".jar";
+        
+        if (journal.isClean(planId) && isInstalled(jarPath)) {
+            log("Install journal clean - skipping verification");
+            return;
+        }
+        if (journal.hasPlan(planId)) {
+            int outstanding = journal.outstandingFiles().size() + journal.outstandingObjects().length;
+            log("Resuming install: " + outstanding + " of " + journal.plannedCount() + " files outstanding");
+            return;
+        }
+        
+        List<String[]> missingFiles = new ArrayList<>();
+        for (String[] f : resolveFiles(info, jsonContent)) {
+            if (!isInstalled(f[0])) missingFiles.add(f);
+        }
+        
+        AssetIndex assets = loadAssetIndex(jsonContent, criticalLane);
+        AssetIndex missingObjects = new AssetIndex(16);
+        if (assets != null) {
+            for (int slot : assets.slots()) {
+                if (!installedIndex.containsObject(assets, slot)) {
+                    missingObjects.add(assets.hashes, slot * 20, assets.sizeAt(slot));
+                }
+            }
+        }
+        
+        journal.beginPlan(planId, missingFiles, missingObjects);
+        log("Planned install: " + (missingFiles.size() + missingObjects.size()) + " files missing");
+    }
+    
+    private void downloadJournaled(String[] item, InstallJournal journal, DownloadLane lane) throws Exception {
+        File dest = new File(item[0]);
+        // Atomic moves make an existing file complete, but one whose download was in flight
+        // when the journal stopped may predate a re-plan, so check its hash before trusting it
+        boolean present = isInstalled(item[0]);
+        if (present && "I".equals(item[3]) && item[2] != null && !item[2].equalsIgnoreCase(sha1Hex(dest))) {
+            // Our own delete; reported back it would invalidate the install in progress
+            installedIndex.expectDelete(dest);
+            if (!dest.delete()) installedIndex.cancelExpectedDelete(dest);
+            present = false;
+        }
+        if (!present) {
+            journal.started(item[0]);
+            dest.getParentFile().mkdirs();
+            // A paused lane throws; pool jobs are requeued by the scheduler
+            downloadObject(item[1], item[2], item[0], lane);
+        }
+        journal.verified(item[0]);
+    }
+    
+    private List<String[]> collectLibraries(String jsonContent) {
         int libStart = jsonContent.indexOf("\"libraries\"");
-        if (libStart == -1) return;
+        if (libStart == -1) return new ArrayList<>();
         
         int arrayStart = jsonContent.indexOf("[", libStart);
-        if (arrayStart == -1) return;
+        if (arrayStart == -1) return new ArrayList<>();
         int arrayEnd = findMatchingBracket(jsonContent, arrayStart);
         String librariesArray = jsonContent.substring(arrayStart, arrayEnd + 1);
         
@@ -732,8 +1510,9 @@ public class CTXLauncher {
                 if (artifactPos != -1) {
                     String path = extractJsonValue(libObj.substring(artifactPos), "path");
                     String url = extractJsonValue(libObj.substring(artifactPos), "url");
+                    String sha1 = extractJsonValue(jsonObjectAt(libObj, artifactPos), "sha1");
                     if (path != null && url != null) {
-                        toDownload.add(new String[]{path, url});
+                        toDownload.add(new String[]{path, url, sha1});
                     }
                 }
                 
@@ -745,8 +1524,9 @@ public class CTXLauncher {
                         if (nativePos != -1) {
                             String path = extractJsonValue(libObj.substring(nativePos), "path");
                             String url = extractJsonValue(libObj.substring(nativePos), "url");
+                            String sha1 = extractJsonValue(jsonObjectAt(libObj, nativePos), "sha1");
                             if (path != null && url != null) {
-                                toDownload.add(new String[]{path, url});
+                                toDownload.add(new String[]{path, url, sha1});
                             }
                         }
                     }
@@ -756,36 +1536,12 @@ public class CTXLauncher {
             pos = objEnd + 1;
         }
         
-        int total = toDownload.size();
-        int current = 0;
-        
-        for (String[] item : toDownload) {
-            String path = item[0];
-            String url = item[1];
-            String fullPath = librariesDir.getAbsolutePath() + "/" + path;
-            
-            if (!new File(fullPath).exists()) {
-                try {
-                    new File(fullPath).getParentFile().mkdirs();
-                    downloadFile(url, fullPath);
-                } catch (Exception e) {
-                    log("Failed to download library: " + path);
-                }
-            }
-            
-            current++;
-            int progress = 15 + (20 * current / Math.max(total, 1));
-            final int c = current;
-            final int t = total;
-            SwingUtilities.invokeLater(() -> {
-                setProgress(progress, "Libraries: " + c + "/" + t);
-            });
-        }
-    }
-    
-    private boolean checkLibraryRules(String libObj, String osName) {
-        int rulesPos = libObj.indexOf("\"rules\"");
-        if (rulesPos == -1) return true;
+        return toDownload;
+    }
+    
+    private boolean checkLibraryRules(String libObj, String osName) {
+        int rulesPos = libObj.indexOf("\"rules\"");
+        if (rulesPos == -1) return true;
         
         boolean allowed = false;
         int arrayStart = libObj.indexOf("[", rulesPos);
@@ -839,6 +1595,10 @@ public class CTXLauncher {
         int libStart = jsonContent.indexOf("\"libraries\"");
         if (libStart == -1) return;
         
+        // The version directory is re-assembled from links into the shared natives store
+        String version = new File(nativesDir).getName();
+        nativeCache.beginVersion(version, new File(nativesDir));
+        
         int arrayStart = jsonContent.indexOf("[", libStart);
         if (arrayStart == -1) return;
         int arrayEnd = findMatchingBracket(jsonContent, arrayStart);
@@ -864,8 +1624,8 @@ public class CTXLauncher {
                     String path = extractJsonValue(libObj.substring(nativePos), "path");
                     if (path != null) {
                         String jarPath = librariesDir.getAbsolutePath() + "/" + path;
-                        if (new File(jarPath).exists()) {
-                            extractJar(jarPath, nativesDir);
+                        if (isInstalled(jarPath)) {
+                            extractJar(jarPath, version, nativesDir);
                         }
                     }
                 }
@@ -873,30 +1633,17 @@ public class CTXLauncher {
             
             pos = objEnd + 1;
         }
+        
+        try {
+            nativeCache.save();
+        } catch (IOException e) {
+            log("Failed to save natives manifest: " + e.getMessage());
+        }
     }
     
-    private void extractJar(String jarPath, String destDir) {
-        try (ZipInputStream zis = new ZipInputStream(new FileInputStream(jarPath))) {
-            ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
-                String name = entry.getName();
-                
-                if (name.startsWith("META-INF/") || entry.isDirectory()) {
-                    continue;
-                }
-                
-                if (name.endsWith(".dll") || name.endsWith(".so") || name.endsWith(".dylib") || name.endsWith(".jnilib")) {
-                    File outFile = new File(destDir, new File(name).getName());
-                    
-                    try (FileOutputStream fos = new FileOutputStream(outFile)) {
-                        byte[] buffer = new byte[8192];
-                        int len;
-                        while ((len = zis.read(buffer)) > 0) {
-                            fos.write(buffer, 0, len);
-                        }
-                    }
-                }
-            }
+    private void extractJar(String jarPath, String version, String destDir) {
+        try {
+            nativeCache.linkJar(new File(jarPath), version, new File(destDir));
         } catch (Exception e) {
             log("Failed to extract natives from: " + jarPath);
         }
@@ -905,83 +1652,72 @@ public class CTXLauncher {
     // ═══════════════════════════════════════════════════════════════════════════════
     // ASSET DOWNLOAD - MULTITHREADED
     // ═══════════════════════════════════════════════════════════════════════════════
-    private void downloadAllAssets(String jsonContent) throws Exception {
-        String assetIndexId = extractNestedJsonValue(jsonContent, "assetIndex", "id");
-        String assetIndexUrl = extractNestedJsonValue(jsonContent, "assetIndex", "url");
+    private void downloadAllAssets(String jsonContent, InstallJournal journal, boolean streaming) throws Exception {
+        AssetIndex objects = journal.objects();
+        int[] missing = journal.outstandingObjects();
         
-        if (assetIndexId == null || assetIndexUrl == null) {
-            log("No asset index found");
+        if (missing.length == 0) {
+            log("All assets already downloaded!");
             return;
         }
         
-        // Download asset index
-        String indexPath = assetsDir.getAbsolutePath() + "/indexes/" + assetIndexId + ".json";
-        if (!new File(indexPath).exists()) {
-            downloadFile(assetIndexUrl, indexPath);
-        }
-        
-        String indexContent = new String(Files.readAllBytes(Paths.get(indexPath)));
-        
-        // Parse all asset hashes
-        List<String> assetHashes = new ArrayList<>();
-        
-        int objectsPos = indexContent.indexOf("\"objects\"");
-        if (objectsPos == -1) return;
-        
-        int braceStart = indexContent.indexOf("{", objectsPos);
-        if (braceStart == -1) return;
-        int braceEnd = findMatchingBrace(indexContent, braceStart);
-        String objectsSection = indexContent.substring(braceStart, braceEnd + 1);
+        totalFiles.set(missing.length);
+        downloadedFiles.set(0);
+        failedFiles.set(0);
         
-        int pos = 0;
-        while ((pos = objectsSection.indexOf("\"hash\"", pos)) != -1) {
-            int colonPos = objectsSection.indexOf(":", pos);
-            int quoteStart = objectsSection.indexOf("\"", colonPos);
-            int quoteEnd = objectsSection.indexOf("\"", quoteStart + 1);
+        if (!streaming) {
+            log("Downloading " + missing.length + " assets...");
+            awaitAll(submitAssetDownloads(objects, missing, journal, criticalLane));
             
-            if (quoteEnd > quoteStart) {
-                String hash = objectsSection.substring(quoteStart + 1, quoteEnd);
-                if (hash.length() >= 2) {
-                    assetHashes.add(hash);
-                }
-            }
-            pos = quoteEnd + 1;
-        }
-        
-        // Filter to missing assets only
-        List<String> missingAssets = new ArrayList<>();
-        for (String hash : assetHashes) {
-            String prefix = hash.substring(0, 2);
-            String assetPath = assetsDir.getAbsolutePath() + "/objects/" + prefix + "/" + hash;
-            if (!new File(assetPath).exists()) {
-                missingAssets.add(hash);
+            int failed = failedFiles.get();
+            if (failed > 0) {
+                log("Warning: " + failed + " assets failed to download");
             }
-        }
-        
-        if (missingAssets.isEmpty()) {
-            log("All assets already downloaded!");
             return;
         }
         
-        totalFiles.set(missingAssets.size());
-        downloadedFiles.set(0);
-        failedFiles.set(0);
+        // Streaming: block only on the critical set, the game loads the rest lazily
+        AssetIndex criticalHashes = parseCriticalAssetHashes(readAssetIndex(jsonContent), criticalAssetPrefixes());
+        int[] critical = new int[missing.length];
+        int[] deferred = new int[missing.length];
+        int c = 0;
+        int d = 0;
+        for (int slot : missing) {
+            if (criticalHashes.slotOf(objects, slot) >= 0) critical[c++] = slot;
+            else deferred[d++] = slot;
+        }
         
-        log("Downloading " + missingAssets.size() + " assets...");
+        log("Downloading " + c + " critical assets, " + d + " in the background...");
+        awaitAll(submitAssetDownloads(objects, Arrays.copyOf(critical, c), journal, criticalLane));
         
-        // Parallel download
-        ExecutorService assetExecutor = Executors.newFixedThreadPool(DOWNLOAD_THREADS);
+        backgroundInstalls.incrementAndGet();
+        List<Future<?>> background = submitAssetDownloads(objects, Arrays.copyOf(deferred, d), journal, streamingLane);
+        executor.submit(() -> {
+            try {
+                awaitAll(background);
+                int failed = failedFiles.get();
+                log("Background asset download finished" + (failed > 0 ? " (" + failed + " failed)" : ""));
+                try {
+                    journal.finish();
+                } catch (IOException e) {}
+                journal.close();
+                setProgress(100, "Ready");
+            } finally {
+                backgroundInstalls.decrementAndGet();
+            }
+        });
+    }
+    
+    // Path and URL strings exist only while an object is being fetched
+    private List<Future<?>> submitAssetDownloads(AssetIndex objects, int[] slots, InstallJournal journal, DownloadLane lane) {
         List<Future<?>> futures = new ArrayList<>();
         
-        for (String hash : missingAssets) {
-            futures.add(assetExecutor.submit(() -> {
+        for (int slot : slots) {
+            futures.add(downloadPool.submit(lane, () -> {
                 try {
-                    String prefix = hash.substring(0, 2);
-                    String assetPath = assetsDir.getAbsolutePath() + "/objects/" + prefix + "/" + hash;
-                    String assetUrl = RESOURCES_URL + prefix + "/" + hash;
-                    
-                    new File(assetPath).getParentFile().mkdirs();
-                    downloadFile(assetUrl, assetPath);
+                    String hash = objects.hashAt(slot);
+                    downloadJournaled(new String[]{assetPath(hash), assetUrl(hash), hash,
+                        journal.objectStarted(slot) ? "I" : "P"}, journal, lane);
                     
                     int done = downloadedFiles.incrementAndGet();
                     int total = totalFiles.get();
@@ -992,146 +1728,1428 @@ public class CTXLauncher {
                             setProgress(progress, "Assets: " + done + "/" + total);
                         });
                     }
+                } catch (DownloadPausedException e) {
+                    throw e;
                 } catch (Exception e) {
                     failedFiles.incrementAndGet();
                 }
             }));
         }
-        
-        // Wait for completion
+        return futures;
+    }
+    
+    private void awaitAll(List<Future<?>> futures) {
         for (Future<?> future : futures) {
             try {
                 future.get();
             } catch (Exception e) {}
         }
+    }
+    
+    // Hashes of index entries whose names start with one of the comma-separated prefixes
+    private AssetIndex parseCriticalAssetHashes(String indexContent, String prefixList) {
+        List<String> prefixes = new ArrayList<>();
+        for (String prefix : prefixList.split(",")) {
+            if (!prefix.trim().isEmpty()) prefixes.add(prefix.trim());
+        }
         
-        assetExecutor.shutdown();
-        assetExecutor.awaitTermination(60, TimeUnit.MINUTES);
+        AssetIndex hashes = new AssetIndex(256);
+        Matcher m = Pattern.compile("\"([^\"]+)\"\\s*:\\s*\\{([^{}]*)\\}").matcher(indexContent);
+        while (m.find()) {
+            for (String prefix : prefixes) {
+                if (m.group(1).startsWith(prefix)) {
+                    String hash = extractJsonValue(m.group(2), "hash");
+                    if (hash != null) hashes.add(hash, 0);
+                    break;
+                }
+            }
+        }
+        return hashes;
+    }
+    
+    private String assetPath(String hash) {
+        return assetsDir.getAbsolutePath() + "/objects/" + hash.substring(0, 2) + "/" + hash;
+    }
+    
+    private static String assetUrl(String hash) {
+        return RESOURCES_URL + hash.substring(0, 2) + "/" + hash;
+    }
+    
+    // The version's asset index file, downloading it first if needed; null when it has none
+    private File assetIndexFile(String jsonContent, DownloadLane lane) throws Exception {
+        String assetIndexId = extractNestedJsonValue(jsonContent, "assetIndex", "id");
+        String assetIndexUrl = extractNestedJsonValue(jsonContent, "assetIndex", "url");
+        if (assetIndexId == null || assetIndexUrl == null) return null;
         
-        int failed = failedFiles.get();
-        if (failed > 0) {
-            log("Warning: " + failed + " assets failed to download");
+        File indexFile = new File(assetsDir, "indexes/" + assetIndexId + ".json");
+        if (!indexFile.exists()) {
+            downloadFile(assetIndexUrl, indexFile.getPath(), lane);
         }
+        return indexFile;
+    }
+    
+    private String readAssetIndex(String jsonContent) throws Exception {
+        File indexFile = assetIndexFile(jsonContent, criticalLane);
+        return indexFile == null ? "" : readUtf8(indexFile);
+    }
+    
+    private AssetIndex loadAssetIndex(String jsonContent, DownloadLane lane) throws Exception {
+        File indexFile = assetIndexFile(jsonContent, lane);
+        return indexFile == null ? null : AssetIndex.parse(readBuffer(indexFile));
     }
     
     // ═══════════════════════════════════════════════════════════════════════════════
-    // GAME LAUNCH
+    // BATCH INSTALL - SHARED DOWNLOAD BUDGET
     // ═══════════════════════════════════════════════════════════════════════════════
-    private void launchMinecraft(String version, String username, int ram, String nativesPath, String jsonContent) {
-        try {
-            String versionDir = versionsDir.getAbsolutePath() + "/" + version;
-            String jarPath = versionDir + "/" + version + ".jar";
-            
-            String mainClass = extractJsonValue(jsonContent, "mainClass");
-            if (mainClass == null) mainClass = "net.minecraft.client.main.Main";
-            
-            // Build classpath
-            List<String> classpathList = new ArrayList<>();
-            classpathList.add(jarPath);
-            addLibrariesToClasspath(jsonContent, classpathList);
-            
-            String sep = System.getProperty("os.name").toLowerCase().contains("win") ? ";" : ":";
-            String classpath = String.join(sep, classpathList);
-            
-            // Build command
-            List<String> cmd = new ArrayList<>();
-            cmd.add(getJavaPath());
-            cmd.add("-Xmx" + ram + "G");
-            cmd.add("-Xms512M");
-            cmd.add("-Djava.library.path=" + nativesPath);
+    private static class BatchReport {
+        final String version;
+        final List<String> required = new ArrayList<>();
+        AssetIndex objects = new AssetIndex(16);
+        int failed;
+        String error;
+        
+        BatchReport(String version) {
+            this.version = version;
+        }
+        
+        @Override
+        public String toString() {
+            if (error != null) return version + ": FAILED (" + error + ")";
+            int total = required.size() + objects.size();
+            if (failed > 0) return version + ": " + failed + "/" + total + " files failed";
+            return version + ": OK (" + total + " files)";
+        }
+    }
+    
+    private void showBatchInstallDialog() {
+        if (isDownloading) return;
+        if (allVersions.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "Version list not loaded yet!", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        JList<VersionInfo> list = new JList<>(allVersions.toArray(new VersionInfo[0]));
+        list.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        list.setVisibleRowCount(15);
+        JScrollPane scroll = new JScrollPane(list);
+        scroll.setPreferredSize(new Dimension(300, 320));
+        
+        int result = JOptionPane.showConfirmDialog(frame, scroll, "Select versions to install",
+            JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (result == JOptionPane.OK_OPTION && !list.getSelectedValuesList().isEmpty()) {
+            batchInstall(list.getSelectedValuesList());
+        }
+    }
+    
+    private void batchInstall(List<VersionInfo> versions) {
+        if (isDownloading) return;
+        
+        cancelPrefetch();
+        isDownloading = true;
+        playButton.setEnabled(false);
+        setStatus("Batch installing " + versions.size() + " versions...");
+        setProgress(0, "Resolving...");
+        
+        executor.submit(() -> {
+            try {
+                setupSSL();
+                List<BatchReport> reports = installVersions(versions);
+                
+                StringBuilder summary = new StringBuilder();
+                for (BatchReport report : reports) {
+                    log("  " + report);
+                    summary.append(report).append("\n");
+                }
+                setStatus("Batch install finished");
+                SwingUtilities.invokeLater(() -> {
+                    JOptionPane.showMessageDialog(frame, summary.toString(), "Batch Install", JOptionPane.INFORMATION_MESSAGE);
+                });
+            } catch (Exception e) {
+                setStatus("Batch install failed: " + e.getMessage());
+                log("Error: " + e.toString());
+            } finally {
+                isDownloading = false;
+                SwingUtilities.invokeLater(() -> playButton.setEnabled(true));
+            }
+        });
+    }
+    
+    private List<BatchReport> installVersions(List<VersionInfo> versions) throws Exception {
+        awaitDirectories();
+        List<BatchReport> reports = new ArrayList<>();
+        Map<String, String> jsonByVersion = new LinkedHashMap<>();
+        
+        // Destination path -> {URL, SHA-1}, deduplicated across every selected version
+        Map<String, String[]> wanted = new LinkedHashMap<>();
+        AssetIndex wantedObjects = new AssetIndex(4096);
+        
+        for (VersionInfo info : versions) {
+            BatchReport report = new BatchReport(info.id);
+            reports.add(report);
             
-            // Additional JVM args
-            String extraArgs = jvmArgsField.getText().trim();
-            if (!extraArgs.isEmpty()) {
-                for (String arg : extraArgs.split("\\s+")) {
-                    if (!arg.isEmpty()) {
-                        cmd.add(arg);
+            try {
+                String json = fetchVersionJson(info);
+                jsonByVersion.put(info.id, json);
+                
+                String jarUrl = extractNestedJsonValue(json, "downloads", "client", "url");
+                if (jarUrl != null) {
+                    String jarPath = versionsDir.getAbsolutePath() + "/" + info.id + "/" + info.id + ".jar";
+                    String jarSha1 = extractNestedJsonValue(json, "downloads", "client", "sha1");
+                    wanted.putIfAbsent(jarPath, new String[]{jarUrl, jarSha1});
+                    report.required.add(jarPath);
+                }
+                
+                for (String[] lib : collectLibraries(json)) {
+                    String fullPath = librariesDir.getAbsolutePath() + "/" + lib[0];
+                    wanted.putIfAbsent(fullPath, new String[]{lib[1], lib[2]});
+                    report.required.add(fullPath);
+                }
+                
+                AssetIndex assets = loadAssetIndex(json, criticalLane);
+                if (assets != null) {
+                    report.objects = assets;
+                    for (int slot : assets.slots()) {
+                        wantedObjects.add(assets.hashes, slot * 20, assets.sizeAt(slot));
                     }
                 }
+            } catch (Exception e) {
+                report.error = e.getMessage();
+                log("Failed to resolve " + info.id + ": " + e.getMessage());
             }
-            
-            // Mac specific
-            if (System.getProperty("os.name").toLowerCase().contains("mac")) {
-                cmd.add("-XstartOnFirstThread");
+        }
+        
+        // One scan of the shared stores for the union of all versions
+        List<String> missing = new ArrayList<>();
+        for (String path : wanted.keySet()) {
+            if (!isInstalled(path)) {
+                missing.add(path);
             }
-            
-            // Offline mode - block auth hosts
-            cmd.add("-Dminecraft.api.auth.host=http://0.0.0.0");
-            cmd.add("-Dminecraft.api.account.host=http://0.0.0.0");
-            cmd.add("-Dminecraft.api.session.host=http://0.0.0.0");
-            cmd.add("-Dminecraft.api.services.host=http://0.0.0.0");
-            
-            cmd.add("-cp");
-            cmd.add(classpath);
-            cmd.add(mainClass);
-            
-            // Game arguments
-            String uuid = generateOfflineUUID(username);
-            String assetIndex = extractNestedJsonValue(jsonContent, "assetIndex", "id");
-            if (assetIndex == null) assetIndex = "legacy";
-            
-            cmd.add("--username"); cmd.add(username);
-            cmd.add("--version"); cmd.add(version);
-            cmd.add("--gameDir"); cmd.add(gameDirectory.getAbsolutePath());
-            cmd.add("--assetsDir"); cmd.add(assetsDir.getAbsolutePath());
-            cmd.add("--assetIndex"); cmd.add(assetIndex);
-            cmd.add("--uuid"); cmd.add(uuid);
-            cmd.add("--accessToken"); cmd.add("0");
-            cmd.add("--userType"); cmd.add("legacy");
-            cmd.add("--versionType"); cmd.add(LAUNCHER_NAME);
-            
-            log("═══════════════════════════════════════════════════════════════════════");
-            log("🚀 LAUNCHING MINECRAFT " + version);
-            log("═══════════════════════════════════════════════════════════════════════");
-            log("Main Class: " + mainClass);
-            log("Username: " + username);
-            log("Memory: " + ram + "GB");
-            log("Natives: " + nativesPath);
-            log("Libraries: " + classpathList.size());
-            log("Asset Index: " + assetIndex);
-            log("═══════════════════════════════════════════════════════════════════════");
-            
-            setStatus("Launching Minecraft " + version + "...");
-            
-            ProcessBuilder pb = new ProcessBuilder(cmd);
-            pb.directory(gameDirectory);
-            pb.inheritIO();
-            Process process = pb.start();
-            
-            // Monitor process in background
-            new Thread(() -> {
+        }
+        int[] missingObjects = wantedObjects.slots();
+        int missingCount = 0;
+        for (int slot : missingObjects) {
+            if (!installedIndex.containsObject(wantedObjects, slot)) missingObjects[missingCount++] = slot;
+        }
+        missingObjects = Arrays.copyOf(missingObjects, missingCount);
+        log("Batch: " + (wanted.size() + wantedObjects.size()) + " unique files, "
+            + (missing.size() + missingCount) + " missing");
+        
+        Set<String> failed = ConcurrentHashMap.newKeySet();
+        AssetIndex failedObjects = new AssetIndex(16);
+        AtomicInteger done = new AtomicInteger(0);
+        int total = missing.size() + missingCount;
+        List<Future<?>> futures = new ArrayList<>();
+        
+        for (String path : missing) {
+            String[] source = wanted.get(path);
+            futures.add(downloadPool.submit(() -> {
                 try {
-                    int exitCode = process.waitFor();
-                    SwingUtilities.invokeLater(() -> {
-                        if (exitCode == 0) {
-                            setStatus("Game closed normally");
-                        } else {
-                            setStatus("Game exited with code: " + exitCode);
-                        }
-                        setProgress(100, "Ready");
-                    });
+                    downloadObject(source[0], source[1], path);
                 } catch (Exception e) {
-                    e.printStackTrace();
+                    failed.add(path);
                 }
-            }).start();
+                int d = done.incrementAndGet();
+                if (d % 50 == 0 || d == total) {
+                    setProgress(90 * d / Math.max(total, 1), "Batch: " + d + "/" + total);
+                }
+            }));
+        }
+        for (int slot : missingObjects) {
+            futures.add(downloadPool.submit(() -> {
+                String hash = wantedObjects.hashAt(slot);
+                try {
+                    downloadObject(assetUrl(hash), hash, assetPath(hash));
+                } catch (Exception e) {
+                    synchronized (failedObjects) {
+                        failedObjects.add(hash, 0);
+                    }
+                }
+                int d = done.incrementAndGet();
+                if (d % 50 == 0 || d == total) {
+                    setProgress(90 * d / Math.max(total, 1), "Batch: " + d + "/" + total);
+                }
+            }));
+        }
+        
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (Exception e) {}
+        }
+        
+        // Natives are per version; extract once the shared download has finished
+        setProgress(95, "Extracting natives...");
+        for (BatchReport report : reports) {
+            String json = jsonByVersion.get(report.version);
+            if (json == null) continue;
             
-            setStatus("Minecraft " + version + " is running!");
+            for (String path : report.required) {
+                if (failed.contains(path)) report.failed++;
+            }
+            if (failedObjects.size() > 0) {
+                for (int slot : report.objects.slots()) {
+                    if (failedObjects.slotOf(report.objects, slot) >= 0) report.failed++;
+                }
+            }
             
-        } catch (Exception e) {
-            e.printStackTrace();
-            log("Launch error: " + e.getMessage());
-            throw new RuntimeException("Failed to launch Minecraft: " + e.getMessage());
+            String nativesPath = nativesDir.getAbsolutePath() + "/" + report.version;
+            new File(nativesPath).mkdirs();
+            extractNatives(json, nativesPath);
         }
+        
+        setProgress(100, "Ready");
+        return reports;
     }
     
-    private String getJavaPath() {
-        String javaHome = System.getProperty("java.home");
-        String os = System.getProperty("os.name").toLowerCase();
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // GARBAGE COLLECTION - MARK AND SWEEP
+    // ═══════════════════════════════════════════════════════════════════════════════
+    private static class GcPlan {
+        final List<File> garbage = new ArrayList<>();
+        final List<String> releasedVersions = new ArrayList<>();
+        long bytes;
         
-        if (os.contains("win")) {
-            return javaHome + "\\bin\\java.exe";
-        } else {
-            return javaHome + "/bin/java";
+        void add(File file) {
+            garbage.add(file);
+            bytes += file.length();
+        }
+    }
+    
+    private void collectGarbage() {
+        if (isDownloading) return;
+        if (backgroundInstalls.get() > 0) {
+            setStatus("Assets are still downloading, clean up afterwards");
+            return;
+        }
+        cancelPrefetch();
+        isDownloading = true;
+        playButton.setEnabled(false);
+        setStatus("Scanning for unused files...");
+        
+        executor.submit(() -> {
+            try {
+                GcPlan plan = planGarbageCollection();
+                String summary = plan.garbage.size() + " unused files, " + (plan.bytes / (1024 * 1024)) + " MB reclaimable";
+                log("Dry run: " + summary);
+                if (plan.garbage.isEmpty() && plan.releasedVersions.isEmpty()) {
+                    setStatus("Nothing to clean up");
+                    return;
+                }
+                
+                int[] choice = new int[1];
+                SwingUtilities.invokeAndWait(() -> {
+                    choice[0] = JOptionPane.showConfirmDialog(frame, summary + "\n\nDelete them now?",
+                        "Clean Up", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE);
+                });
+                if (choice[0] != JOptionPane.YES_OPTION) {
+                    setStatus("Clean up cancelled");
+                    return;
+                }
+                
+                long freed = sweep(plan);
+                setStatus("Clean up freed " + (freed / (1024 * 1024)) + " MB");
+            } catch (Exception e) {
+                setStatus("Clean up failed: " + e.getMessage());
+                log("Error: " + e.toString());
+            } finally {
+                isDownloading = false;
+                SwingUtilities.invokeLater(() -> playButton.setEnabled(true));
+            }
+        });
+    }
+    
+    private GcPlan planGarbageCollection() throws IOException {
+        awaitDirectories();
+        // Mark: everything reachable from the installed versions' JSONs and asset indexes
+        Set<String> installed = new HashSet<>();
+        Set<Path> liveLibraryDirs = new HashSet<>();
+        Set<String> liveIndexes = new HashSet<>();
+        AssetIndex liveObjects = new AssetIndex(4096);
+        Pattern pathPattern = Pattern.compile("\"path\"\\s*:\\s*\"([^\"]+)\"");
+        Pattern namePattern = Pattern.compile("\"name\"\\s*:\\s*\"([^\":]+):([^\":]+):([^\"]+)\"");
+        
+        File[] versionDirs = versionsDir.listFiles(File::isDirectory);
+        if (versionDirs != null) {
+            for (File dir : versionDirs) {
+                File json = new File(dir, dir.getName() + ".json");
+                if (!json.exists()) continue;
+                installed.add(dir.getName());
+                String content = readUtf8(json);
+                
+                // Whole artifact directories stay live, which also keeps every native classifier
+                int libStart = content.indexOf("\"libraries\"");
+                if (libStart != -1) {
+                    int arrayStart = content.indexOf("[", libStart);
+                    String libraries = arrayStart == -1 ? "" : content.substring(arrayStart, findMatchingBracket(content, arrayStart) + 1);
+                    Matcher m = pathPattern.matcher(libraries);
+                    while (m.find()) {
+                        liveLibraryDirs.add(librariesDir.toPath().resolve(m.group(1)).getParent().normalize());
+                    }
+                    m = namePattern.matcher(libraries);
+                    while (m.find()) {
+                        String version = m.group(3).split(":")[0];
+                        liveLibraryDirs.add(librariesDir.toPath().resolve(
+                            m.group(1).replace('.', '/') + "/" + m.group(2) + "/" + version).normalize());
+                    }
+                }
+                
+                String indexId = extractNestedJsonValue(content, "assetIndex", "id");
+                if (indexId != null) liveIndexes.add(indexId + ".json");
+            }
+        }
+        
+        File indexesDir = new File(assetsDir, "indexes");
+        for (String index : liveIndexes) {
+            File indexFile = new File(indexesDir, index);
+            if (indexFile.exists()) {
+                liveObjects.addAll(readBuffer(indexFile));
+            }
+        }
+        
+        // Sweep candidates: anything unmarked, plus leftovers from interrupted downloads
+        GcPlan plan = new GcPlan();
+        if (librariesDir.exists()) {
+            try (java.util.stream.Stream<Path> files = Files.walk(librariesDir.toPath())) {
+                files.filter(Files::isRegularFile).forEach(f -> {
+                    if (isLivePart(f.toFile())) return;
+                    if (f.toString().endsWith(".part") || !liveLibraryDirs.contains(f.getParent().normalize())) {
+                        plan.add(f.toFile());
+                    }
+                });
+            }
+        }
+        
+        File objectsDir = new File(assetsDir, "objects");
+        File[] prefixes = objectsDir.listFiles(File::isDirectory);
+        if (prefixes != null) {
+            for (File prefix : prefixes) {
+                File[] objects = prefix.listFiles();
+                if (objects == null) continue;
+                for (File object : objects) {
+                    if (!liveObjects.contains(object.getName()) && !isLivePart(object)) plan.add(object);
+                }
+            }
+        }
+        
+        File[] indexes = indexesDir.listFiles();
+        if (indexes != null) {
+            for (File index : indexes) {
+                if (!liveIndexes.contains(index.getName())) plan.add(index);
+            }
+        }
+        
+        File[] nativeDirs = nativesDir.listFiles(File::isDirectory);
+        if (nativeDirs != null) {
+            for (File dir : nativeDirs) {
+                if (dir.getName().startsWith(".") || installed.contains(dir.getName())) continue;
+                plan.releasedVersions.add(dir.getName());
+                // Entries are links into natives/.store, whose bytes reclaim() accounts for
+                File[] files = dir.listFiles();
+                if (files != null) {
+                    plan.garbage.addAll(Arrays.asList(files));
+                }
+                plan.garbage.add(dir);
+            }
+        }
+        
+        return plan;
+    }
+    
+    // A recent .part may be a download still running here or in another instance sharing the directory
+    private static boolean isLivePart(File file) {
+        return file.getName().endsWith(".part") && file.lastModified() > System.currentTimeMillis() - STALE_PART_MS;
+    }
+    
+    private long sweep(GcPlan plan) throws Exception {
+        AtomicLong freed = new AtomicLong();
+        AtomicInteger done = new AtomicInteger();
+        int total = plan.garbage.size();
+        List<Future<?>> futures = new ArrayList<>();
+        
+        // Files first in parallel; emptied natives directories are removed afterwards
+        for (File file : plan.garbage) {
+            if (file.isDirectory()) continue;
+            futures.add(downloadPool.submit(() -> {
+                long size = file.length();
+                installedIndex.expectDelete(file);
+                if (file.delete()) freed.addAndGet(size);
+                else installedIndex.cancelExpectedDelete(file);
+                int d = done.incrementAndGet();
+                if (d % 500 == 0 || d == total) {
+                    setProgress(100 * d / Math.max(total, 1), "Cleaning: " + d + "/" + total);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        for (File file : plan.garbage) {
+            if (file.isDirectory()) file.delete();
+        }
+        deleteEmptyDirectories(librariesDir);
+        
+        for (String version : plan.releasedVersions) {
+            nativeCache.release(version);
+        }
+        freed.addAndGet(nativeCache.reclaim());
+        
+        setProgress(100, "Ready");
+        return freed.get();
+    }
+    
+    private void deleteEmptyDirectories(File dir) {
+        File[] children = dir.listFiles(File::isDirectory);
+        if (children == null) return;
+        for (File child : children) {
+            deleteEmptyDirectories(child);
+            String[] left = child.list();
+            if (left != null && left.length == 0) child.delete();
+        }
+    }
+    
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // SPECULATIVE PREFETCH
+    // ═══════════════════════════════════════════════════════════════════════════════
+    private class Prefetch {
+        final VersionInfo version;
+        final DownloadLane lane = new DownloadLane(bandwidthLimiter, Priority.PREFETCH, PREFETCH_BYTES_PER_SECOND);
+        volatile boolean adopted;
+        
+        Prefetch(VersionInfo version) {
+            this.version = version;
+        }
+        
+        // Launch takes over: the current transfer becomes launch-critical, nothing new is queued
+        void adopt() {
+            adopted = true;
+            lane.promote(Priority.LAUNCH_CRITICAL);
+        }
+        
+        void cancel() {
+            lane.cancel();
+        }
+        
+        boolean stopped() {
+            return adopted || lane.isCancelled();
+        }
+    }
+    
+    private void schedulePrefetch() {
+        String selected = (String) versionCombo.getSelectedItem();
+        Prefetch current = activePrefetch;
+        if (current != null && !current.stopped() && current.version.id.equals(selected)) {
+            return;
+        }
+        if (current != null && !current.adopted) {
+            current.cancel();
+        }
+        activePrefetch = null;
+        
+        VersionInfo info = selected == null ? null : versionCache.get(selected);
+        if (info == null || isDownloading) return;
+        
+        Prefetch prefetch = new Prefetch(info);
+        activePrefetch = prefetch;
+        prefetchPool.submit(() -> runPrefetch(prefetch));
+    }
+    
+    // Every file a version needs as {destination, url, sha1}; fetches the version JSON and asset index
+    private List<String[]> resolveInstallFiles(VersionInfo info, DownloadLane lane) throws Exception {
+        String json = fetchVersionJson(info);
+        List<String[]> files = resolveFiles(info, json);
+        AssetIndex assets = loadAssetIndex(json, lane);
+        int[] slots = assets == null ? new int[0] : assets.slots();
+        
+        // Asset entries are materialised one at a time as the caller walks the list
+        return new AbstractList<String[]>() {
+            @Override
+            public String[] get(int i) {
+                if (i < files.size()) return files.get(i);
+                String hash = assets.hashAt(slots[i - files.size()]);
+                return new String[]{assetPath(hash), assetUrl(hash), hash};
+            }
+            
+            @Override
+            public int size() {
+                return files.size() + slots.length;
+            }
+        };
+    }
+    
+    // Client jar and libraries as {dest, url, sha1}
+    private List<String[]> resolveFiles(VersionInfo info, String json) {
+        List<String[]> files = new ArrayList<>();
+        String jarUrl = extractNestedJsonValue(json, "downloads", "client", "url");
+        if (jarUrl != null) {
+            String jarPath = versionsDir.getAbsolutePath() + "/" + info.id + "/" + info.id + ".jar";
+            files.add(new String[]{jarPath, jarUrl, extractNestedJsonValue(json, "downloads", "client", "sha1")});
+        }
+        for (String[] lib : collectLibraries(json)) {
+            files.add(new String[]{librariesDir.getAbsolutePath() + "/" + lib[0], lib[1], lib[2]});
+        }
+        return files;
+    }
+    
+    private void cancelPrefetch() {
+        Prefetch prefetch = activePrefetch;
+        if (prefetch != null && !prefetch.adopted) {
+            prefetch.cancel();
+        }
+    }
+    
+    private void runPrefetch(Prefetch prefetch) {
+        String version = prefetch.version.id;
+        try {
+            // Let the selection settle before touching the network
+            Thread.sleep(PREFETCH_DELAY_MS);
+            if (prefetch.stopped()) return;
+            awaitDirectories();
+            
+            setupSSL();
+            List<String[]> pending = resolveInstallFiles(prefetch.version, prefetch.lane);
+            
+            int fetched = 0;
+            for (String[] item : pending) {
+                while (!prefetch.stopped() && !new File(item[0]).exists()) {
+                    waitWhilePaused(prefetch.lane);
+                    try {
+                        downloadObject(item[1], item[2], item[0], prefetch.lane);
+                        fetched++;
+                    } catch (DownloadPausedException e) {
+                        continue; // preempted by a launch-critical transfer
+                    } catch (DownloadCancelledException e) {
+                        break;
+                    } catch (Exception e) {
+                        break; // best effort; the real install will retry and report it
+                    }
+                }
+                if (prefetch.stopped()) break;
+            }
+            
+            if (fetched > 0) {
+                log("Prefetched " + fetched + " files for " + version + (prefetch.stopped() ? " (stopped)" : ""));
+            }
+        } catch (InterruptedException | DownloadCancelledException e) {
+            // Selection changed
+        } catch (Exception e) {
+            log("Prefetch of " + version + " failed: " + e.getMessage());
+        }
+    }
+    
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // BACKGROUND SYNC
+    // ═══════════════════════════════════════════════════════════════════════════════
+    private File getManifestCacheFile() {
+        return new File(versionsDir, "version_manifest.json");
+    }
+    
+    // Conditional GET against the cached manifest; a 304 just refreshes the cache's age. A new body is
+    // parsed into sink while it streams in and written to the cache on the side. Returns latest.release.
+    private String revalidateManifest(Consumer<VersionInfo> sink) throws IOException {
+        File cache = getManifestCacheFile();
+        File etagFile = new File(cache.getPath() + ".etag");
+        
+        HttpURLConnection conn = (HttpURLConnection) new URL(VERSION_MANIFEST_URL).openConnection();
+        conn.setRequestProperty("User-Agent", LAUNCHER_NAME + "/" + LAUNCHER_VERSION);
+        conn.setConnectTimeout(10000);
+        conn.setReadTimeout(10000);
+        acceptCompression(conn);
+        if (cache.exists() && etagFile.exists()) {
+            conn.setRequestProperty("If-None-Match", new String(Files.readAllBytes(etagFile.toPath()), "UTF-8").trim());
+        }
+        
+        int code = conn.getResponseCode();
+        if (code == HttpURLConnection.HTTP_NOT_MODIFIED) {
+            cache.setLastModified(System.currentTimeMillis());
+            try (InputStream in = new FileInputStream(cache)) {
+                return streamManifest(in, sink);
+            }
+        }
+        if (code != HttpURLConnection.HTTP_OK) {
+            throw new IOException("HTTP " + code + " fetching version manifest");
+        }
+        
+        File temp = new File(cache.getPath() + ".part");
+        String latest;
+        try (InputStream in = new TeeInputStream(openBody(conn), new FileOutputStream(temp))) {
+            latest = streamManifest(in, sink);
+            // Trailing whitespace still belongs in the cached copy
+            byte[] rest = new byte[8192];
+            while (in.read(rest) != -1) {}
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        Files.move(temp.toPath(), cache.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        
+        String etag = conn.getHeaderField("ETag");
+        if (etag != null) {
+            Files.write(etagFile.toPath(), etag.getBytes("UTF-8"));
+        } else {
+            etagFile.delete();
+        }
+        return latest;
+    }
+    
+    private void backgroundSync() {
+        if (syncLane.isPaused()) return;
+        
+        try {
+            awaitDirectories();
+            setupSSL();
+            List<VersionInfo> versions = new ArrayList<>();
+            String latest = revalidateManifest(versions::add);
+            
+            // Stage the newest release so the next launch needs no network
+            VersionInfo latestInfo = null;
+            for (VersionInfo info : versions) {
+                if (info.id.equals(latest)) {
+                    latestInfo = info;
+                    break;
+                }
+            }
+            
+            if (latestInfo != null) {
+                int fetched = 0;
+                for (String[] item : resolveInstallFiles(latestInfo, syncLane)) {
+                    while (!new File(item[0]).exists()) {
+                        waitWhilePaused(syncLane);
+                        try {
+                            downloadObject(item[1], item[2], item[0], syncLane);
+                            fetched++;
+                        } catch (DownloadPausedException e) {
+                            continue; // retry once idle again
+                        } catch (Exception e) {
+                            break;
+                        }
+                    }
+                }
+                if (fetched > 0) {
+                    log("Background sync: pre-downloaded " + fetched + " files for " + latest);
+                }
+            }
+            
+            verifyObjectSlice();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log("Background sync failed: " + e.getMessage());
+        }
+    }
+    
+    private void waitWhilePaused(DownloadLane lane) throws InterruptedException {
+        while (lane.isPaused() && !lane.isCancelled()) {
+            Thread.sleep(250);
+        }
+    }
+    
+    // A clean journal vouches for files that were just deleted, so the next launch has to re-plan
+    private void invalidateInstallJournals() {
+        File[] versions = versionsDir.listFiles(File::isDirectory);
+        if (versions == null) return;
+        for (File dir : versions) {
+            new File(dir, dir.getName() + ".journal").delete();
+        }
+    }
+    
+    // Files under a version directory only belong to that version's plan; libraries and objects are
+    // shared, so those still invalidate every journal. A null path means the index lost track.
+    private void onInstalledFileDeleted(Path path) {
+        Path versions = versionsDir.toPath().toAbsolutePath().normalize();
+        if (path == null || !path.startsWith(versions)) {
+            invalidateInstallJournals();
+            return;
+        }
+        Path rel = versions.relativize(path);
+        // version_manifest.json, or a whole version directory that took its journal with it
+        if (rel.getNameCount() < 2) return;
+        String version = rel.getName(0).toString();
+        String child = rel.getName(1).toString();
+        // Launcher-built caches, rebuilt on demand and never part of an install plan
+        if (child.equals("cds") || child.equals("classpath") || child.equals("startup-assets.txt")) return;
+        new File(versionsDir, version + "/" + version + ".journal").delete();
+    }
+    
+    // Re-hashes a rotating slice of assets/objects so the whole store is checked over time
+    private void verifyObjectSlice() throws Exception {
+        File objectsDir = new File(assetsDir, "objects");
+        File cursorFile = new File(assetsDir, ".ctx-verify-cursor");
+        int cursor = 0;
+        if (cursorFile.exists()) {
+            try {
+                cursor = Integer.parseInt(new String(Files.readAllBytes(cursorFile.toPath()), "UTF-8").trim()) & 0xff;
+            } catch (NumberFormatException e) {
+                cursor = 0;
+            }
+        }
+        
+        int checked = 0;
+        int corrupt = 0;
+        for (int i = 0; i < SYNC_VERIFY_PREFIXES; i++) {
+            File[] objects = new File(objectsDir, String.format("%02x", (cursor + i) & 0xff)).listFiles();
+            if (objects == null) continue;
+            
+            for (File object : objects) {
+                if (object.getName().length() != 40) continue;
+                waitWhilePaused(syncLane);
+                if (!object.getName().equals(sha1Hex(object))) {
+                    // A hard-linked store copy shares the bad bytes, so drop it too
+                    if (contentStore != null) contentStore.objectFile(object.getName()).delete();
+                    object.delete();
+                    corrupt++;
+                }
+                checked++;
+            }
+        }
+        
+        Files.write(cursorFile.toPath(), String.valueOf((cursor + SYNC_VERIFY_PREFIXES) & 0xff).getBytes("UTF-8"));
+        if (corrupt > 0) {
+            invalidateInstallJournals();
+            log("Background sync: removed " + corrupt + " corrupt objects of " + checked + " checked");
+        }
+    }
+    
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // BANDWIDTH LIMITING
+    // ═══════════════════════════════════════════════════════════════════════════════
+    static class DownloadCancelledException extends IOException {
+        private static final long serialVersionUID = 1L;
+        
+        DownloadCancelledException() {
+            super("Download cancelled");
+        }
+        
+        DownloadCancelledException(String message) {
+            super(message);
+        }
+    }
+    
+    // Thrown instead of blocking so a paused transfer never sits on its download lock
+    static class DownloadPausedException extends DownloadCancelledException {
+        private static final long serialVersionUID = 1L;
+        
+        DownloadPausedException() {
+            super("Download paused");
+        }
+    }
+    
+    // Lower ordinal = higher priority
+    enum Priority {
+        LAUNCH_CRITICAL, PREFETCH, BACKGROUND
+    }
+    
+    static class TokenBucket {
+        private volatile long bytesPerSecond;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+        
+        TokenBucket(long bytesPerSecond) {
+            setBytesPerSecond(bytesPerSecond);
+        }
+        
+        // 0 disables the limit
+        synchronized void setBytesPerSecond(long bytesPerSecond) {
+            this.bytesPerSecond = bytesPerSecond;
+            this.tokens = Math.min(tokens, capacity());
+        }
+        
+        long getBytesPerSecond() {
+            return bytesPerSecond;
+        }
+        
+        private long capacity() {
+            return Math.max(bytesPerSecond / 4, 65536);
+        }
+        
+        // Takes the bytes and returns 0, or returns how many ms until they would be available
+        synchronized long tryAcquire(int bytes) {
+            if (bytesPerSecond <= 0) return 0;
+            long now = System.nanoTime();
+            tokens = Math.min(capacity(), tokens + (now - lastRefill) * bytesPerSecond / 1e9);
+            lastRefill = now;
+            if (tokens >= bytes) {
+                tokens -= bytes;
+                return 0;
+            }
+            return (long) ((bytes - tokens) * 1000 / bytesPerSecond) + 1;
+        }
+        
+        synchronized void refund(int bytes) {
+            if (bytesPerSecond > 0) tokens = Math.min(capacity(), tokens + bytes);
+        }
+    }
+    
+    static class BandwidthLimiter {
+        private final TokenBucket bucket = new TokenBucket(0);
+        private final AtomicIntegerArray active = new AtomicIntegerArray(Priority.values().length);
+        
+        void setBytesPerSecond(long bytesPerSecond) {
+            bucket.setBytesPerSecond(bytesPerSecond);
+        }
+        
+        void begin(Priority priority) {
+            active.incrementAndGet(priority.ordinal());
+        }
+        
+        void end(Priority priority) {
+            active.decrementAndGet(priority.ordinal());
+        }
+        
+        // A class yields while any transfer of a higher class is running or queued
+        boolean isPreempted(Priority priority) {
+            for (int i = 0; i < priority.ordinal(); i++) {
+                if (active.get(i) > 0) return true;
+            }
+            return false;
+        }
+    }
+    
+    static class DownloadLane {
+        private final BandwidthLimiter limiter;
+        private final TokenBucket cap;
+        private volatile Priority priority;
+        private volatile boolean cancelled;
+        private volatile BooleanSupplier pauseWhen = () -> false;
+        
+        DownloadLane(BandwidthLimiter limiter, Priority priority, long capBytesPerSecond) {
+            this.limiter = limiter;
+            this.priority = priority;
+            this.cap = new TokenBucket(capBytesPerSecond);
+        }
+        
+        Priority priority() {
+            return priority;
+        }
+        
+        // Raised lanes drop their own cap and stop yielding
+        void promote(Priority priority) {
+            this.priority = priority;
+            cap.setBytesPerSecond(0);
+        }
+        
+        void cancel() {
+            cancelled = true;
+        }
+        
+        boolean isCancelled() {
+            return cancelled;
+        }
+        
+        void setPauseWhen(BooleanSupplier pauseWhen) {
+            this.pauseWhen = pauseWhen;
+        }
+        
+        boolean isPaused() {
+            return pauseWhen.getAsBoolean() || limiter.isPreempted(priority);
+        }
+        
+        Priority begin() {
+            Priority p = priority;
+            limiter.begin(p);
+            return p;
+        }
+        
+        void end(Priority p) {
+            limiter.end(p);
+        }
+        
+        // Blocks until the bytes may be written. Paused or preempted transfers throw
+        // instead of blocking so they never sit on a download lock.
+        void acquire(int bytes) throws IOException {
+            while (true) {
+                if (cancelled) throw new DownloadCancelledException();
+                if (isPaused()) throw new DownloadPausedException();
+                
+                long waitMs = cap.tryAcquire(bytes);
+                if (waitMs == 0) {
+                    waitMs = limiter.bucket.tryAcquire(bytes);
+                    if (waitMs == 0) return;
+                    cap.refund(bytes);
+                }
+                
+                try {
+                    Thread.sleep(Math.min(waitMs, 100));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new DownloadCancelledException();
+                }
+            }
+        }
+    }
+    
+    // The shared download workers, fed from a priority queue: lane priority first, then submission
+    // order. Queued jobs count as active for their class, so critical work waiting for a worker
+    // already preempts background transfers. A job whose lane is paused or preempted goes back on
+    // the queue after a short delay instead of sleeping on the worker.
+    static class DownloadScheduler {
+        interface Task {
+            void run() throws Exception;
+        }
+        
+        private static final long REQUEUE_DELAY_MS = 250;
+        private final ThreadPoolExecutor workers;
+        private final BandwidthLimiter limiter;
+        private final AtomicLong sequence = new AtomicLong();
+        private final ScheduledExecutorService requeue = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ctx-download-requeue");
+            t.setDaemon(true);
+            return t;
+        });
+        
+        DownloadScheduler(int threads, BandwidthLimiter limiter, ThreadFactory threadFactory) {
+            this.limiter = limiter;
+            this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), threadFactory);
+        }
+        
+        // Launch-critical work that is not a lane transfer (batch files, clean-up deletes)
+        Future<?> submit(Runnable task) {
+            return submit(null, task::run);
+        }
+        
+        Future<?> submit(DownloadLane lane, Task task) {
+            Job job = new Job(lane, task);
+            job.enqueue();
+            return job.result;
+        }
+        
+        private final class Job implements Runnable, Comparable<Job> {
+            final DownloadLane lane;
+            final Task task;
+            final CompletableFuture<Void> result = new CompletableFuture<>();
+            Priority priority;
+            long order;
+            
+            Job(DownloadLane lane, Task task) {
+                this.lane = lane;
+                this.task = task;
+            }
+            
+            void enqueue() {
+                priority = lane == null ? Priority.LAUNCH_CRITICAL : lane.priority();
+                order = sequence.incrementAndGet();
+                limiter.begin(priority);
+                workers.execute(this);
+            }
+            
+            @Override
+            public void run() {
+                limiter.end(priority);
+                if (lane != null && lane.isCancelled()) {
+                    result.completeExceptionally(new DownloadCancelledException());
+                    return;
+                }
+                try {
+                    if (lane != null && lane.isPaused()) throw new DownloadPausedException();
+                    task.run();
+                    result.complete(null);
+                } catch (DownloadPausedException e) {
+                    requeue.schedule(this::enqueue, REQUEUE_DELAY_MS, TimeUnit.MILLISECONDS);
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            }
+            
+            @Override
+            public int compareTo(Job other) {
+                int byPriority = priority.compareTo(other.priority);
+                return byPriority != 0 ? byPriority : Long.compare(order, other.order);
+            }
+        }
+    }
+    
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // GAME LAUNCH
+    // ═══════════════════════════════════════════════════════════════════════════════
+    private void launchMinecraft(String version, String username, int ram, String nativesPath, String jsonContent) {
+        try {
+            String versionDir = versionsDir.getAbsolutePath() + "/" + version;
+            String jarPath = versionDir + "/" + version + ".jar";
+            
+            String mainClass = extractJsonValue(jsonContent, "mainClass");
+            if (mainClass == null) mainClass = "net.minecraft.client.main.Main";
+            
+            // Build classpath
+            List<String> classpathList = new ArrayList<>();
+            classpathList.add(jarPath);
+            addLibrariesToClasspath(jsonContent, classpathList);
+            if (isConsolidatedClasspath()) {
+                classpathList = consolidateClasspath(version, classpathList);
+            }
+            
+            String sep = System.getProperty("os.name").toLowerCase().contains("win") ? ";" : ":";
+            String classpath = String.join(sep, classpathList);
+            
+            // Build command
+            List<String> cmd = new ArrayList<>();
+            cmd.add(getJavaPath());
+            cmd.add("-Xmx" + ram + "G");
+            cmd.add("-Djava.library.path=" + nativesPath);
+            
+            // Tuning: a detected profile, or the free-form JVM arguments for Custom
+            JvmProfile profile = machineProfile().resolve(jvmProfile());
+            if (profile == JvmProfile.CUSTOM) {
+                cmd.add("-Xms512M");
+                String extraArgs = jvmArgs().trim();
+                if (!extraArgs.isEmpty()) {
+                    for (String arg : extraArgs.split("\\s+")) {
+                        if (!arg.isEmpty()) {
+                            cmd.add(arg);
+                        }
+                    }
+                }
+            } else {
+                cmd.addAll(machineProfile().tuningArgs(profile, ram));
+                int requiredJava = requiredJavaVersion(jsonContent);
+                if (requiredJava > Runtime.version().feature()) {
+                    log("Warning: " + version + " asks for Java " + requiredJava + ", running on " + Runtime.version().feature());
+                }
+            }
+            
+            // Per-session GC log, summarised by the supervisor when the game exits
+            File gcLog = null;
+            if (cmd.stream().noneMatch(arg -> arg.startsWith("-Xlog"))) {
+                gcLog = new File(gameDirectory, String.format("logs/gc/%s-%tY%<tm%<td-%<tH%<tM%<tS.log", version, new Date()));
+                gcLog.getParentFile().mkdirs();
+                // Quoted: a Windows drive letter's ':' would otherwise end the file name
+                cmd.add("-Xlog:gc,gc+phases:file=\"" + gcLog.getAbsolutePath() + "\":uptime");
+            }
+            
+            // Mac specific
+            if (System.getProperty("os.name").toLowerCase().contains("mac")) {
+                cmd.add("-XstartOnFirstThread");
+            }
+            
+            // Offline mode - block auth hosts
+            cmd.add("-Dminecraft.api.auth.host=http://0.0.0.0");
+            cmd.add("-Dminecraft.api.account.host=http://0.0.0.0");
+            cmd.add("-Dminecraft.api.session.host=http://0.0.0.0");
+            cmd.add("-Dminecraft.api.services.host=http://0.0.0.0");
+            
+            File[] cdsDump = new File[2];
+            cmd.addAll(gameCdsArgs(version, classpathList, cmd, cdsDump));
+            
+            cmd.add("-cp");
+            cmd.add(classpath);
+            cmd.add(mainClass);
+            
+            // Game arguments
+            String uuid = generateOfflineUUID(username);
+            String assetIndex = extractNestedJsonValue(jsonContent, "assetIndex", "id");
+            if (assetIndex == null) assetIndex = "legacy";
+            
+            cmd.add("--username"); cmd.add(username);
+            cmd.add("--version"); cmd.add(version);
+            cmd.add("--gameDir"); cmd.add(gameDirectory.getAbsolutePath());
+            cmd.add("--assetsDir"); cmd.add(assetsDir.getAbsolutePath());
+            cmd.add("--assetIndex"); cmd.add(assetIndex);
+            cmd.add("--uuid"); cmd.add(uuid);
+            cmd.add("--accessToken"); cmd.add("0");
+            cmd.add("--userType"); cmd.add("legacy");
+            cmd.add("--versionType"); cmd.add(LAUNCHER_NAME);
+            
+            log("═══════════════════════════════════════════════════════════════════════");
+            log("🚀 LAUNCHING MINECRAFT " + version);
+            log("═══════════════════════════════════════════════════════════════════════");
+            log("Main Class: " + mainClass);
+            log("Username: " + username);
+            log("Memory: " + ram + "GB");
+            log("JVM Profile: " + profile);
+            log("Natives: " + nativesPath);
+            log("Libraries: " + classpathList.size());
+            log("Asset Index: " + assetIndex);
+            log("═══════════════════════════════════════════════════════════════════════");
+            
+            setStatus("Launching Minecraft " + version + "...");
+            
+            List<String> timedArgs = timedArgs(cmd.subList(1, cmd.indexOf("-cp")));
+            
+            List<String> launchCommand = LinuxScheduling.launchPrefix(gameCpuSet(), gameNice(), gameIoPriority(), this::log);
+            if (!launchCommand.isEmpty()) log("Scheduling: " + String.join(" ", launchCommand));
+            launchCommand.addAll(cmd);
+            
+            ProcessBuilder pb = new ProcessBuilder(launchCommand);
+            pb.directory(gameDirectory);
+            pb.redirectInput(ProcessBuilder.Redirect.INHERIT);
+            pb.redirectErrorStream(true);
+            LaunchTimer timer = new LaunchTimer(version, timedArgs,
+                (System.nanoTime() - playPressedNanos) / 1_000_000, LaunchTimer.parseMilestones(startupMilestones()));
+            Process process = pb.start();
+            if (runningGames.incrementAndGet() == 1) setDownloadsDemoted(true);
+            pumpGameOutput(process, timer);
+            if (isPrewarmEnabled()) {
+                List<File> objectDirs = new ArrayList<>(Collections.singletonList(new File(assetsDir, "objects")));
+                // Symlinked objects are opened through their store path
+                if (contentStore != null) objectDirs.add(new File(contentStore.root, "objects"));
+                PageCacheWarmer.learnStartupAssets(process.toHandle(), objectDirs,
+                    startupAssetsFile(version), timer::complete, STARTUP_LEARN_MAX_MS);
+            }
+            GameSupervisor supervisor = new GameSupervisor(process, version, (long) ram << 30, gcLog, monitorIntervalMs(),
+                () -> SwingUtilities.invokeLater(this::updateMonitor));
+            gameSupervisor = supervisor;
+            
+            // Monitor process in background
+            new Thread(() -> {
+                try {
+                    int exitCode = process.waitFor();
+                    publishCdsArchive(cdsDump, exitCode);
+                    String summary = supervisor.finish();
+                    log("Session: " + summary);
+                    appendSessionLog(summary);
+                    SwingUtilities.invokeLater(() -> {
+                        if (gameSupervisor == supervisor) {
+                            gameSupervisor = null;
+                            lastSessionSummary = summary;
+                            updateMonitor();
+                        }
+                        if (exitCode == 0) {
+                            setStatus("Game closed normally");
+                        } else {
+                            setStatus("Game exited with code: " + exitCode);
+                        }
+                        setProgress(100, "Ready");
+                    });
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    // Otherwise sync stays paused and the download workers demoted for the session
+                    if (runningGames.decrementAndGet() == 0) setDownloadsDemoted(false);
+                }
+            }).start();
+            
+            setStatus("Minecraft " + version + " is running!");
+            
+        } catch (Exception e) {
+            e.printStackTrace();
+            log("Launch error: " + e.getMessage());
+            throw new RuntimeException("Failed to launch Minecraft: " + e.getMessage());
+        }
+    }
+    
+    // Echoes the game's output to our console, as inheritIO did, while matching startup milestones
+    private void pumpGameOutput(Process process, LaunchTimer timer) {
+        Thread pump = new Thread(() -> {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    System.out.println(line);
+                    String milestone = timer.onLine(line);
+                    if (milestone != null) {
+                        log("Startup milestone: " + milestone);
+                        if (timer.complete()) log("Startup: " + timer.record());
+                    }
+                }
+            } catch (IOException e) {
+                // Stream closes with the process
+            }
+            String partial = timer.record();
+            if (partial != null) log("Startup: " + partial);
+        }, "game-output");
+        pump.setDaemon(true);
+        pump.start();
+    }
+    
+    // The plan's classpath as one cached STORED jar under versions/<version>/classpath, rebuilt when
+    // the plan changes. Falls back to the jars as they are if the merge fails. Builds hold .lock so
+    // launchers sharing the directory build a plan once; jars of other plans are kept while a game
+    // started before the change may still have them open.
+    @SuppressWarnings("try") // the build lock is only held, never used
+    private List<String> consolidateClasspath(String version, List<String> classpathList) {
+        try {
+            File dir = new File(versionsDir, version + "/classpath");
+            dir.mkdirs();
+            File merged = new File(dir, classpathHash(classpathList, "stored-v1") + ".jar");
+            try (FileChannel channel = FileChannel.open(new File(dir, ".lock").toPath(),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                long cutoff = System.currentTimeMillis() - STALE_CACHE_MS;
+                File[] stale = dir.listFiles((d, name) -> (name.endsWith(".jar") || name.endsWith(".part"))
+                    && !name.equals(merged.getName()));
+                if (stale != null) {
+                    for (File old : stale) {
+                        // Builders hold the lock, so any .part here was left by a crash
+                        if (old.getName().endsWith(".part") || old.lastModified() < cutoff) old.delete();
+                    }
+                }
+                
+                if (merged.isFile() && !ConsolidatedClasspath.isComplete(merged)) {
+                    log("Discarding unreadable " + merged.getName());
+                    merged.delete();
+                }
+                if (merged.isFile()) {
+                    // Marks it in use for the stale sweep
+                    merged.setLastModified(System.currentTimeMillis());
+                } else {
+                    long start = System.nanoTime();
+                    ConsolidatedClasspath.build(classpathList, merged);
+                    log(String.format("Consolidated %d jars into %s (%d MB, %d ms)", classpathList.size(), merged.getName(),
+                        merged.length() >> 20, (System.nanoTime() - start) / 1_000_000));
+                }
+            }
+            return new ArrayList<>(Collections.singletonList(merged.getAbsolutePath()));
+        } catch (IOException e) {
+            log("Could not consolidate classpath, using separate jars: " + e.getMessage());
+            return classpathList;
+        }
+    }
+    
+    // --bench-classpath: class loading over the stock classpath vs the consolidated jar, alternating
+    // runs so neither side gets all the warm-up
+    private void benchClasspath(String version, int runs) throws IOException {
+        File json = new File(versionsDir, version + "/" + version + ".json");
+        if (!json.isFile()) throw new IOException(version + " is not installed in " + gameDirectory);
+        List<String> stock = new ArrayList<>();
+        stock.add(new File(versionsDir, version + "/" + version + ".jar").getAbsolutePath());
+        addLibrariesToClasspath(readUtf8(json), stock);
+        List<String> merged = consolidateClasspath(version, stock);
+        if (merged == stock) throw new IOException("consolidation failed");
+        List<String> classNames = ConsolidatedClasspath.classNames(stock);
+        System.out.printf("%s: %d jars, %d classes, consolidated jar %d MB%n", version, stock.size(), classNames.size(),
+            new File(merged.get(0)).length() >> 20);
+        
+        long[][] times = new long[2][runs];
+        for (int run = 0; run < runs; run++) {
+            for (int side = 0; side < 2; side++) {
+                int which = (run + side) % 2;
+                long[] result = ConsolidatedClasspath.loadAll(which == 0 ? stock : merged, classNames);
+                times[which][run] = result[0];
+                System.out.printf("  run %d %-12s %6d ms  (%d loaded, %d failed)%n", run + 1,
+                    which == 0 ? "stock" : "consolidated", result[0], result[1], result[2]);
+                System.gc();
+            }
+        }
+        Arrays.sort(times[0]);
+        Arrays.sort(times[1]);
+        long stockMedian = times[0][runs / 2], mergedMedian = times[1][runs / 2];
+        System.out.printf("median: stock %d ms, consolidated %d ms (%.2fx)%n", stockMedian, mergedMedian,
+            (double) stockMedian / Math.max(1, mergedMedian));
+    }
+    
+    // JVM options that identify a launch plan; the natives path and GC log name differ every session
+    private static List<String> timedArgs(List<String> jvmArgs) {
+        List<String> timed = new ArrayList<>();
+        for (String arg : jvmArgs) {
+            if (!arg.startsWith("-Djava.library.path=") && !arg.startsWith("-Xlog")) timed.add(arg);
+        }
+        return timed;
+    }
+    
+    // Dynamic AppCDS archive per version: the first launch of a classpath dumps the classes it loaded
+    // at exit, later launches map them instead of loading from the jars. Archives are keyed by the
+    // classpath, JVM build and launch options (an archive dumped under one heap or collector setup
+    // is rejected under another), so any change in the launch plan starts a new archive and the
+    // stale ones are deleted once no game can still be mapping them.
+    //
+    // Several launchers can share a game directory: each dump goes to its own .part name and is
+    // renamed into place by publishCdsArchive() after the game exits, so a launch never maps an
+    // archive that is still being written. dump receives {part, archive} when a dump is requested.
+    private List<String> gameCdsArgs(String version, List<String> classpathList, List<String> jvmArgs, File[] dump) throws IOException {
+        if (!isGameCdsEnabled() || Runtime.version().feature() < 13 || jvmArgs.contains("-Xshare:off")) {
+            return Collections.emptyList();
+        }
+        File cdsDir = new File(versionsDir, version + "/cds");
+        cdsDir.mkdirs();
+        String key = classpathHash(classpathList,
+            System.getProperty("java.vm.version") + "\n" + String.join(" ", timedArgs(jvmArgs)));
+        File archive = new File(cdsDir, key + ".jsa");
+        
+        long cutoff = System.currentTimeMillis() - STALE_CACHE_MS;
+        File[] stale = cdsDir.listFiles((dir, name) -> (name.endsWith(".jsa") || name.endsWith(".jsa.part"))
+            && !name.equals(archive.getName()));
+        if (stale != null) {
+            for (File old : stale) {
+                // Other keys may still be mapped by a game started before the plan changed
+                if (old.lastModified() < cutoff && old.delete()) log("CDS: dropped stale archive " + old.getName());
+            }
+        }
+        
+        if (archive.isFile()) {
+            // Marks it in use for the stale sweep
+            archive.setLastModified(System.currentTimeMillis());
+            log("CDS: using " + archive.getName());
+            return Collections.singletonList("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+        }
+        File part = Files.createTempFile(cdsDir.toPath(), key + ".", ".jsa.part").toFile();
+        // Only the unique name is needed, the game JVM creates the file when it dumps
+        part.delete();
+        dump[0] = part;
+        dump[1] = archive;
+        log("CDS: archiving classes at exit to " + archive.getName());
+        return Collections.singletonList("-XX:ArchiveClassesAtExit=" + part.getAbsolutePath());
+    }
+    
+    // A dump is complete once its game has exited; a crashed game may have left half an archive
+    private void publishCdsArchive(File[] dump, int exitCode) {
+        File part = dump[0];
+        if (part == null) return;
+        try {
+            if (exitCode == 0 && part.length() > 0) {
+                Files.move(part.toPath(), dump[1].toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                log("CDS: saved " + dump[1].getName());
+            }
+        } catch (IOException e) {
+            // Another instance published the same key first and a game has it mapped
+            log("CDS: could not save " + dump[1].getName() + ": " + e.getMessage());
+        } finally {
+            part.delete();
+        }
+    }
+    
+    // Identifies a launch plan's classpath: entry order, paths, sizes and timestamps
+    private static String classpathHash(List<String> classpathList, String salt) throws IOException {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            md.update(salt.getBytes(StandardCharsets.UTF_8));
+            for (String entry : classpathList) {
+                File file = new File(entry);
+                md.update(String.format("%n%s|%d|%d", entry, file.length(), file.lastModified()).getBytes(StandardCharsets.UTF_8));
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : Arrays.copyOf(md.digest(), 8)) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+    
+    private void setDownloadsDemoted(boolean demoted) {
+        demotionExecutor.execute(() -> {
+            downloadsDemoted = demoted;
+            LinuxScheduling.demoteThreads(DOWNLOAD_THREAD_PREFIX, demoted);
+        });
+    }
+    
+    // Workers are started lazily, possibly after the game's demotion pass already ran
+    private void onDownloadWorkerStart() {
+        if (!LinuxScheduling.SUPPORTED) return;
+        String tid = LinuxScheduling.currentThreadId();
+        if (tid == null) return;
+        demotionExecutor.execute(() -> {
+            if (downloadsDemoted) LinuxScheduling.demoteThread(tid, true);
+        });
+    }
+    
+    // One line per game session, for sizing RAM from what the game actually used
+    private void appendSessionLog(String summary) {
+        File sessions = new File(System.getProperty("user.home"), ".ctxlauncher/sessions.log");
+        sessions.getParentFile().mkdirs();
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(sessions, true), StandardCharsets.UTF_8)) {
+            out.write(summary + "\n");
+        } catch (IOException e) {
+            log("Could not record session: " + e.getMessage());
+        }
+    }
+    
+    private String getJavaPath() {
+        String javaHome = System.getProperty("java.home");
+        String os = System.getProperty("os.name").toLowerCase();
+        
+        if (os.contains("win")) {
+            return javaHome + "\\bin\\java.exe";
+        } else {
+            return javaHome + "/bin/java";
         }
     }
     
@@ -1139,147 +3157,2238 @@ public class CTXLauncher {
         int libStart = jsonContent.indexOf("\"libraries\"");
         if (libStart == -1) return;
         
-        int arrayStart = jsonContent.indexOf("[", libStart);
-        if (arrayStart == -1) return;
-        int arrayEnd = findMatchingBracket(jsonContent, arrayStart);
-        String librariesArray = jsonContent.substring(arrayStart, arrayEnd + 1);
+        int arrayStart = jsonContent.indexOf("[", libStart);
+        if (arrayStart == -1) return;
+        int arrayEnd = findMatchingBracket(jsonContent, arrayStart);
+        String librariesArray = jsonContent.substring(arrayStart, arrayEnd + 1);
+        
+        String osName = getOsName();
+        
+        int pos = 0;
+        while ((pos = librariesArray.indexOf("{", pos)) != -1) {
+            int objEnd = findMatchingBrace(librariesArray, pos);
+            String libObj = librariesArray.substring(pos, objEnd + 1);
+            
+            if (!checkLibraryRules(libObj, osName)) {
+                pos = objEnd + 1;
+                continue;
+            }
+            
+            int downloadsPos = libObj.indexOf("\"downloads\"");
+            if (downloadsPos != -1) {
+                int artifactPos = libObj.indexOf("\"artifact\"", downloadsPos);
+                if (artifactPos != -1) {
+                    String path = extractJsonValue(libObj.substring(artifactPos), "path");
+                    if (path != null) {
+                        String fullPath = librariesDir.getAbsolutePath() + "/" + path;
+                        if (isInstalled(fullPath) && !classpathList.contains(fullPath)) {
+                            classpathList.add(fullPath);
+                        }
+                    }
+                }
+            }
+            
+            pos = objEnd + 1;
+        }
+    }
+    
+    private String generateOfflineUUID(String username) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            byte[] digest = md.digest(("OfflinePlayer:" + username).getBytes());
+            
+            digest[6] = (byte) ((digest[6] & 0x0f) | 0x30);
+            digest[8] = (byte) ((digest[8] & 0x3f) | 0x80);
+            
+            StringBuilder sb = new StringBuilder();
+            for (byte b : digest) {
+                sb.append(String.format("%02x", b));
+            }
+            String hex = sb.toString();
+            
+            return hex.substring(0, 8) + "-" + hex.substring(8, 12) + "-" +
+                   hex.substring(12, 16) + "-" + hex.substring(16, 20) + "-" +
+                   hex.substring(20, 32);
+                   
+        } catch (Exception e) {
+            return "00000000-0000-0000-0000-000000000000";
+        }
+    }
+    
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // UTILITY METHODS
+    // ═══════════════════════════════════════════════════════════════════════════════
+    private String getOsName() {
+        String os = System.getProperty("os.name").toLowerCase();
+        if (os.contains("win")) return "windows";
+        if (os.contains("mac")) return "osx";
+        return "linux";
+    }
+    
+    private void downloadFile(String urlStr, String destPath) throws Exception {
+        downloadFile(urlStr, destPath, criticalLane);
+    }
+    
+    private void downloadFile(String urlStr, String destPath, DownloadLane lane) throws Exception {
+        downloadFile(urlStr, destPath, lane, null);
+    }
+    
+    // A known SHA-1 is checked on the .part, so a bad download never appears under its final name
+    private void downloadFile(String urlStr, String destPath, DownloadLane lane, String sha1) throws Exception {
+        String key = new File(destPath).getAbsolutePath();
+        
+        while (true) {
+            CompletableFuture<Void> flight = new CompletableFuture<>();
+            CompletableFuture<Void> existing = inFlightDownloads.putIfAbsent(key, flight);
+            
+            if (existing != null) {
+                // Already being fetched by another task in this launcher - share its result
+                try {
+                    existing.get();
+                    return;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof DownloadCancelledException) {
+                        continue; // its owner gave up (cancelled prefetch), fetch it ourselves
+                    }
+                    throw new IOException("Download failed: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+            
+            try {
+                downloadFileLocked(urlStr, new File(key), lane, sha1);
+                flight.complete(null);
+                return;
+            } catch (Exception e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlightDownloads.remove(key, flight);
+            }
+        }
+    }
+    
+    @SuppressWarnings("try") // the region lock is only held, never used
+    private void downloadFileLocked(String urlStr, File dest, DownloadLane lane, String sha1) throws Exception {
+        boolean existed = dest.exists();
+        int stripe = (dest.getPath().hashCode() & 0x7fffffff) % DOWNLOAD_LOCK_STRIPES;
+        
+        // The stripe monitor keeps this JVM from overlapping its own region locks,
+        // the region lock keeps other launcher instances sharing .minecraft out
+        synchronized (downloadLockStripes[stripe]) {
+            try (FileLock ignored = getDownloadLockChannel(dest).lock(stripe, 1, false)) {
+                if (!existed && dest.exists()) {
+                    return; // another instance finished it while we waited
+                }
+                transferFile(urlStr, dest, lane, sha1);
+            }
+        }
+    }
+    
+    private synchronized FileChannel getDownloadLockChannel(File dest) throws IOException {
+        // Store objects are shared by several game directories, so they lock on the store
+        File root = gameDirectory;
+        if (contentStore != null && dest.toPath().toAbsolutePath().normalize()
+                .startsWith(contentStore.root.toPath().toAbsolutePath().normalize())) {
+            root = contentStore.root;
+        }
+        
+        FileChannel channel = downloadLockChannels.get(root);
+        if (channel == null) {
+            // Kept open: closing any handle to the file would drop every lock we hold on it
+            root.mkdirs();
+            channel = FileChannel.open(new File(root, ".ctx-downloads.lock").toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            downloadLockChannels.put(root, channel);
+        }
+        return channel;
+    }
+    
+    // Downloads through the shared store when enabled and the SHA-1 is known
+    private void downloadObject(String urlStr, String sha1, String destPath) throws Exception {
+        downloadObject(urlStr, sha1, destPath, criticalLane);
+    }
+    
+    private void downloadObject(String urlStr, String sha1, String destPath, DownloadLane lane) throws Exception {
+        if (contentStore == null || sha1 == null || sha1.length() != 40) {
+            downloadFile(urlStr, destPath, lane);
+            return;
+        }
+        
+        File object = contentStore.objectFile(sha1);
+        if (!object.exists()) {
+            // Verified before the move: other instances link store objects as soon as they exist
+            downloadFile(urlStr, object.getPath(), lane, sha1);
+        }
+        contentStore.link(sha1, new File(destPath));
+    }
+    
+    // JSON metadata compresses 5-10x; jars and asset objects are already compressed and go over raw
+    private static void acceptCompression(URLConnection conn) {
+        conn.setRequestProperty("Accept-Encoding", "gzip, deflate");
+    }
+    
+    // Response body decoded on the fly, so callers always see the plain bytes
+    private static InputStream openBody(HttpURLConnection conn) throws IOException {
+        InputStream in = conn.getInputStream();
+        String encoding = conn.getContentEncoding();
+        if (encoding == null) return in;
+        switch (encoding.trim().toLowerCase()) {
+            case "gzip":
+            case "x-gzip":
+                return new GZIPInputStream(in, 8192);
+            case "deflate":
+                return new InflaterInputStream(in);
+            default:
+                return in;
+        }
+    }
+    
+    private void transferFile(String urlStr, File dest, DownloadLane lane, String sha1) throws Exception {
+        URL url = new URL(urlStr);
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        conn.setConnectTimeout(DOWNLOAD_TIMEOUT);
+        conn.setReadTimeout(DOWNLOAD_TIMEOUT);
+        conn.setRequestProperty("User-Agent", LAUNCHER_NAME + "/" + LAUNCHER_VERSION);
+        if (urlStr.endsWith(".json")) acceptCompression(conn);
+        
+        dest.getParentFile().mkdirs();
+        File part = new File(dest.getPath() + ".part");
+        Priority priority = lane.begin();
+        
+        try {
+            try (InputStream in = openBody(conn);
+                 FileOutputStream out = new FileOutputStream(part)) {
+                byte[] buffer = new byte[8192];
+                int bytesRead;
+                while ((bytesRead = in.read(buffer)) != -1) {
+                    lane.acquire(bytesRead);
+                    out.write(buffer, 0, bytesRead);
+                }
+            }
+            if (sha1 != null && !sha1.equalsIgnoreCase(sha1Hex(part))) {
+                throw new IOException("SHA-1 mismatch for " + urlStr);
+            }
+            Files.move(part.toPath(), dest.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            lane.end(priority);
+            part.delete();
+        }
+    }
+    
+    private String extractJsonValue(String json, String key) {
+        int keyPos = json.indexOf("\"" + key + "\"");
+        if (keyPos == -1) return null;
+        
+        int colonPos = json.indexOf(":", keyPos);
+        if (colonPos == -1) return null;
+        
+        int valueStart = colonPos + 1;
+        while (valueStart < json.length() && Character.isWhitespace(json.charAt(valueStart))) {
+            valueStart++;
+        }
+        
+        if (valueStart >= json.length()) return null;
+        
+        if (json.charAt(valueStart) == '"') {
+            int valueEnd = json.indexOf("\"", valueStart + 1);
+            if (valueEnd == -1) return null;
+            return json.substring(valueStart + 1, valueEnd);
+        }
+        
+        return null;
+    }
+    
+    private String extractNestedJsonValue(String json, String... keys) {
+        String current = json;
+        for (int i = 0; i < keys.length - 1; i++) {
+            int keyPos = current.indexOf("\"" + keys[i] + "\"");
+            if (keyPos == -1) return null;
+            int bracePos = current.indexOf("{", keyPos);
+            if (bracePos == -1) return null;
+            int braceEnd = findMatchingBrace(current, bracePos);
+            current = current.substring(bracePos, braceEnd + 1);
+        }
+        return extractJsonValue(current, keys[keys.length - 1]);
+    }
+    
+    private String jsonObjectAt(String json, int keyPos) {
+        int braceStart = json.indexOf("{", keyPos);
+        if (braceStart == -1) return "";
+        return json.substring(braceStart, findMatchingBrace(json, braceStart) + 1);
+    }
+    
+    // Heap copies: a mapping held until GC keeps the file locked on Windows, which breaks
+    // re-downloads and clean-up sweeps of the very JSONs and indexes read here
+    private static ByteBuffer readBuffer(File file) throws IOException {
+        return ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+    }
+    
+    private static String readUtf8(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+    
+    private static String sha1Hex(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            byte[] buffer = new byte[65536];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                md.update(buffer, 0, len);
+            }
+            StringBuilder sb = new StringBuilder();
+            for (byte b : md.digest()) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+    }
+    
+    private int findMatchingBracket(String s, int start) {
+        int count = 0;
+        for (int i = start; i < s.length(); i++) {
+            if (s.charAt(i) == '[') count++;
+            else if (s.charAt(i) == ']') count--;
+            if (count == 0) return i;
+        }
+        return s.length() - 1;
+    }
+    
+    private int findMatchingBrace(String s, int start) {
+        int count = 0;
+        for (int i = start; i < s.length(); i++) {
+            if (s.charAt(i) == '{') count++;
+            else if (s.charAt(i) == '}') count--;
+            if (count == 0) return i;
+        }
+        return s.length() - 1;
+    }
+    
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // CONTENT-ADDRESSED STORE
+    // ═══════════════════════════════════════════════════════════════════════════════
+    static class ContentStore {
+        final File root;
+        
+        ContentStore(File root) {
+            this.root = root.getAbsoluteFile();
+            new File(this.root, "objects").mkdirs();
+        }
+        
+        File objectFile(String sha1) {
+            String hash = sha1.toLowerCase();
+            return new File(root, "objects/" + hash.substring(0, 2) + "/" + hash);
+        }
+        
+        void link(String sha1, File dest) throws IOException {
+            linkOrCopy(objectFile(sha1).toPath(), dest.toPath());
+        }
+    }
+    
+    // Hard link where possible, symlink across volumes, plain copy as a last resort
+    static void linkOrCopy(Path target, Path link) throws IOException {
+        Files.createDirectories(link.getParent());
+        Files.deleteIfExists(link);
+        
+        try {
+            Files.createLink(link, target);
+        } catch (IOException | UnsupportedOperationException e) {
+            try {
+                Files.createSymbolicLink(link, target);
+            } catch (IOException | UnsupportedOperationException e2) {
+                Files.copy(target, link, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+    
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // SHARED NATIVES STORE
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // natives/.store/objects/<sha1> holds each extracted library once. The manifest
+    // remembers what every natives jar extracted to (jar.*) and which versions use
+    // each object (ref.*), so unreferenced objects can be reclaimed.
+    //
+    // Other launcher instances share the store, so changes are kept as pending edits and
+    // replayed onto a fresh read of the manifest, under manifest.lock, on every save.
+    static class NativeCache {
+        // An object this young may belong to another instance that has not saved its refs yet
+        private static final long RECLAIM_MIN_AGE_MS = 10 * 60 * 1000;
+        private final File root;
+        private final File manifestFile;
+        private final Properties manifest = new Properties();
+        private final List<Consumer<Properties>> pending = new ArrayList<>();
+        
+        NativeCache(File nativesDir) {
+            root = new File(nativesDir, ".store");
+            manifestFile = new File(root, "manifest.properties");
+            new File(root, "objects").mkdirs();
+            reload();
+        }
+        
+        File objectFile(String hash) {
+            return new File(root, "objects/" + hash);
+        }
+        
+        synchronized void beginVersion(String version, File versionDir) {
+            release(version);
+            versionDir.mkdirs();
+            File[] old = versionDir.listFiles();
+            if (old != null) {
+                for (File f : old) {
+                    if (f.isFile() || Files.isSymbolicLink(f.toPath())) f.delete();
+                }
+            }
+        }
+        
+        synchronized void release(String version) {
+            apply(m -> {
+                for (String key : m.stringPropertyNames()) {
+                    if (!key.startsWith("ref.")) continue;
+                    Set<String> versions = new LinkedHashSet<>(Arrays.asList(m.getProperty(key).split(",")));
+                    if (versions.remove(version)) {
+                        if (versions.isEmpty()) m.remove(key);
+                        else m.setProperty(key, String.join(",", versions));
+                    }
+                }
+            });
+        }
+        
+        synchronized int linkJar(File jar, String version, File versionDir) throws IOException {
+            String jarKey = "jar." + jar.getAbsolutePath() + "|" + jar.length() + "|" + jar.lastModified();
+            String entries = manifest.getProperty(jarKey);
+            if (entries == null || !allPresent(entries)) {
+                String extracted = extractToStore(jar);
+                apply(m -> m.setProperty(jarKey, extracted));
+                entries = extracted;
+            }
+            
+            int count = 0;
+            for (String entry : entries.split(";")) {
+                if (entry.isEmpty()) continue;
+                int sep = entry.lastIndexOf(':');
+                String name = entry.substring(0, sep);
+                String hash = entry.substring(sep + 1);
+                
+                linkOrCopy(objectFile(hash).toPath(), new File(versionDir, name).toPath());
+                String refKey = "ref." + hash;
+                apply(m -> {
+                    String refs = m.getProperty(refKey);
+                    if (refs == null) {
+                        m.setProperty(refKey, version);
+                    } else if (!Arrays.asList(refs.split(",")).contains(version)) {
+                        m.setProperty(refKey, refs + "," + version);
+                    }
+                });
+                count++;
+            }
+            return count;
+        }
+        
+        private boolean allPresent(String entries) {
+            for (String entry : entries.split(";")) {
+                if (!entry.isEmpty() && !objectFile(entry.substring(entry.lastIndexOf(':') + 1)).exists()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        private String extractToStore(File jar) throws IOException {
+            StringBuilder entries = new StringBuilder();
+            try (ZipInputStream zis = new ZipInputStream(new FileInputStream(jar))) {
+                ZipEntry entry;
+                while ((entry = zis.getNextEntry()) != null) {
+                    String name = entry.getName();
+                    if (name.startsWith("META-INF/") || entry.isDirectory()) continue;
+                    if (!(name.endsWith(".dll") || name.endsWith(".so") || name.endsWith(".dylib") || name.endsWith(".jnilib"))) continue;
+                    
+                    File temp = File.createTempFile("native", ".tmp", root);
+                    MessageDigest md;
+                    try {
+                        md = MessageDigest.getInstance("SHA-1");
+                    } catch (NoSuchAlgorithmException e) {
+                        throw new IOException(e);
+                    }
+                    try (OutputStream out = new DigestOutputStream(new FileOutputStream(temp), md)) {
+                        byte[] buffer = new byte[8192];
+                        int len;
+                        while ((len = zis.read(buffer)) > 0) {
+                            out.write(buffer, 0, len);
+                        }
+                    }
+                    
+                    StringBuilder hash = new StringBuilder();
+                    for (byte b : md.digest()) {
+                        hash.append(String.format("%02x", b));
+                    }
+                    File object = objectFile(hash.toString());
+                    if (object.exists()) {
+                        temp.delete();
+                    } else {
+                        Files.move(temp.toPath(), object.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                    }
+                    
+                    if (entries.length() > 0) entries.append(';');
+                    entries.append(new File(name).getName()).append(':').append(hash);
+                }
+            }
+            return entries.toString();
+        }
+        
+        // Deletes store objects no version references; returns the bytes freed
+        @SuppressWarnings("try") // the manifest lock is only held, never used
+        synchronized long reclaim() throws IOException {
+            long freed = 0;
+            try (FileChannel channel = openLock(); FileLock ignored = channel.lock()) {
+                reload();
+                Set<String> referenced = new HashSet<>();
+                for (String key : manifest.stringPropertyNames()) {
+                    if (key.startsWith("ref.")) referenced.add(key.substring(4));
+                }
+                
+                long cutoff = System.currentTimeMillis() - RECLAIM_MIN_AGE_MS;
+                File[] objects = new File(root, "objects").listFiles();
+                if (objects != null) {
+                    for (File object : objects) {
+                        if (!referenced.contains(object.getName()) && object.lastModified() < cutoff) {
+                            long size = object.length();
+                            if (object.delete()) freed += size;
+                        }
+                    }
+                }
+                
+                apply(m -> {
+                    for (String key : m.stringPropertyNames()) {
+                        if (key.startsWith("jar.") && !allPresent(m.getProperty(key))) m.remove(key);
+                    }
+                });
+                write();
+            }
+            return freed;
+        }
+        
+        @SuppressWarnings("try") // the manifest lock is only held, never used
+        synchronized void save() throws IOException {
+            try (FileChannel channel = openLock(); FileLock ignored = channel.lock()) {
+                reload();
+                write();
+            }
+        }
+        
+        private void apply(Consumer<Properties> edit) {
+            edit.accept(manifest);
+            pending.add(edit);
+        }
+        
+        // The manifest as on disk, with this instance's unsaved edits on top
+        private void reload() {
+            manifest.clear();
+            if (manifestFile.exists()) {
+                try (InputStream in = new FileInputStream(manifestFile)) {
+                    manifest.load(in);
+                } catch (IOException e) {
+                    manifest.clear();
+                }
+            }
+            for (Consumer<Properties> edit : pending) edit.accept(manifest);
+        }
+        
+        private void write() throws IOException {
+            File temp = new File(root, "manifest.properties.tmp");
+            try (OutputStream out = new FileOutputStream(temp)) {
+                manifest.store(out, "CTXLauncher shared natives");
+            }
+            Files.move(temp.toPath(), manifestFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            pending.clear();
+        }
+        
+        private FileChannel openLock() throws IOException {
+            return FileChannel.open(new File(root, "manifest.lock").toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        }
+    }
+    
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // COMPACT ASSET INDEX
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // Open-addressing set of packed 20-byte SHA-1s with sizes in a parallel array. An index of
+    // 100k objects costs ~6 MB instead of a String, a path and a URL per object; those are only
+    // built by hashAt() when an object is actually downloaded.
+    static class AssetIndex {
+        private static final long EMPTY = -1;
+        private static final long REMOVED = -2;
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+        private static final byte[] OBJECTS_KEY = "\"objects\"".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] HASH_KEY = "\"hash\"".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] SIZE_KEY = "\"size\"".getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] COLON = {':'};
+        private static final byte[] QUOTE = {'"'};
+        private static final byte[] CLOSE_BRACE = {'}'};
+        
+        private byte[] hashes;
+        private long[] sizes;
+        private int count;
+        private int used;
+        
+        AssetIndex(int expected) {
+            int capacity = 16;
+            while (capacity < expected * 2) capacity <<= 1;
+            hashes = new byte[capacity * 20];
+            sizes = new long[capacity];
+            Arrays.fill(sizes, EMPTY);
+        }
+        
+        // Every {"hash": ..., "size": ...} under "objects", scanned straight from the UTF-8 bytes
+        // (keys and hashes are ASCII); field order within an entry doesn't matter
+        static AssetIndex parse(ByteBuffer indexContent) {
+            AssetIndex index = new AssetIndex(1024);
+            index.addAll(indexContent);
+            return index;
+        }
+        
+        void addAll(ByteBuffer buf) {
+            int limit = buf.limit();
+            int objectsPos = indexOf(buf, OBJECTS_KEY, 0, limit);
+            if (objectsPos == -1) return;
+            
+            byte[] packed = new byte[20];
+            int pos = objectsPos;
+            while ((pos = indexOf(buf, HASH_KEY, pos + 1, limit)) != -1) {
+                int quoteStart = indexOf(buf, QUOTE, indexOf(buf, COLON, pos, limit), limit);
+                if (quoteStart == -1 || !decode(buf, quoteStart + 1, packed)) continue;
+                
+                int objStart = pos;
+                while (objStart > 0 && buf.get(objStart) != '{') objStart--;
+                int objEnd = indexOf(buf, CLOSE_BRACE, pos, limit);
+                if (objEnd == -1) objEnd = limit;
+                
+                long size = 0;
+                int sizePos = indexOf(buf, SIZE_KEY, objStart, objEnd);
+                if (sizePos != -1) {
+                    int i = indexOf(buf, COLON, sizePos, objEnd) + 1;
+                    while (i > 0 && i < objEnd && Character.isWhitespace(buf.get(i))) i++;
+                    while (i > 0 && i < objEnd && buf.get(i) >= '0' && buf.get(i) <= '9') {
+                        size = size * 10 + (buf.get(i++) - '0');
+                    }
+                }
+                add(packed, 0, size);
+            }
+        }
+        
+        int add(String hex, long size) {
+            byte[] packed = new byte[20];
+            return decode(hex, 0, packed) ? add(packed, 0, size) : -1;
+        }
+        
+        int add(byte[] buf, int off, long size) {
+            int slot = slotOf(buf, off);
+            if (slot >= 0) return slot;
+            if ((used + 1) * 2 > sizes.length) {
+                // Mostly tombstones (the installed index churns): clean up in place rather than grow
+                rehash(count * 4 < sizes.length ? sizes.length : sizes.length * 2);
+            }
+            
+            int mask = sizes.length - 1;
+            slot = hashCode(buf, off) & mask;
+            while (sizes[slot] != EMPTY && sizes[slot] != REMOVED) slot = (slot + 1) & mask;
+            if (sizes[slot] == EMPTY) used++;
+            System.arraycopy(buf, off, hashes, slot * 20, 20);
+            sizes[slot] = size;
+            count++;
+            return slot;
+        }
+        
+        int slotOf(String hex) {
+            byte[] packed = new byte[20];
+            return decode(hex, 0, packed) ? slotOf(packed, 0) : -1;
+        }
+        
+        // Slot of another index's entry, compared without unpacking it
+        int slotOf(AssetIndex other, int otherSlot) {
+            return slotOf(other.hashes, otherSlot * 20);
+        }
+        
+        int slotOf(byte[] buf, int off) {
+            int mask = sizes.length - 1;
+            int slot = hashCode(buf, off) & mask;
+            while (sizes[slot] != EMPTY) {
+                if (sizes[slot] != REMOVED && equalsAt(slot, buf, off)) return slot;
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+        
+        boolean contains(String hex) {
+            return slotOf(hex) >= 0;
+        }
+        
+        boolean remove(String hex) {
+            int slot = slotOf(hex);
+            if (slot < 0) return false;
+            sizes[slot] = REMOVED;
+            count--;
+            return true;
+        }
+        
+        void clear() {
+            Arrays.fill(sizes, EMPTY);
+            count = 0;
+            used = 0;
+        }
+        
+        int size() {
+            return count;
+        }
+        
+        int capacity() {
+            return sizes.length;
+        }
+        
+        boolean occupied(int slot) {
+            return sizes[slot] >= 0;
+        }
+        
+        long sizeAt(int slot) {
+            return sizes[slot];
+        }
+        
+        // Occupied slots in table order
+        int[] slots() {
+            int[] slots = new int[count];
+            int n = 0;
+            for (int i = 0; i < sizes.length; i++) {
+                if (sizes[i] >= 0) slots[n++] = i;
+            }
+            return slots;
+        }
+        
+        String hashAt(int slot) {
+            char[] hex = new char[40];
+            for (int i = 0; i < 20; i++) {
+                int b = hashes[slot * 20 + i] & 0xff;
+                hex[i * 2] = HEX[b >>> 4];
+                hex[i * 2 + 1] = HEX[b & 0xf];
+            }
+            return new String(hex);
+        }
+        
+        private void rehash(int capacity) {
+            byte[] oldHashes = hashes;
+            long[] oldSizes = sizes;
+            hashes = new byte[capacity * 20];
+            sizes = new long[capacity];
+            Arrays.fill(sizes, EMPTY);
+            count = 0;
+            used = 0;
+            for (int i = 0; i < oldSizes.length; i++) {
+                if (oldSizes[i] >= 0) add(oldHashes, i * 20, oldSizes[i]);
+            }
+        }
+        
+        private boolean equalsAt(int slot, byte[] buf, int off) {
+            int base = slot * 20;
+            for (int i = 0; i < 20; i++) {
+                if (hashes[base + i] != buf[off + i]) return false;
+            }
+            return true;
+        }
+        
+        // SHA-1 bytes are already uniform, the leading four make a fine hash
+        private static int hashCode(byte[] buf, int off) {
+            return (buf[off] & 0xff) << 24 | (buf[off + 1] & 0xff) << 16 | (buf[off + 2] & 0xff) << 8 | (buf[off + 3] & 0xff);
+        }
+        
+        private static int indexOf(ByteBuffer buf, byte[] needle, int from, int limit) {
+            if (from < 0) return -1;
+            outer:
+            for (int i = from; i <= limit - needle.length; i++) {
+                for (int j = 0; j < needle.length; j++) {
+                    if (buf.get(i + j) != needle[j]) continue outer;
+                }
+                return i;
+            }
+            return -1;
+        }
+        
+        private static boolean decode(ByteBuffer buf, int start, byte[] out) {
+            if (start + 40 > buf.limit()) return false;
+            for (int i = 0; i < 20; i++) {
+                int hi = Character.digit(buf.get(start + i * 2), 16);
+                int lo = Character.digit(buf.get(start + i * 2 + 1), 16);
+                if (hi < 0 || lo < 0) return false;
+                out[i] = (byte) (hi << 4 | lo);
+            }
+            return true;
+        }
+        
+        private static boolean decode(CharSequence s, int start, byte[] out) {
+            if (start + 40 > s.length()) return false;
+            for (int i = 0; i < 20; i++) {
+                int hi = Character.digit(s.charAt(start + i * 2), 16);
+                int lo = Character.digit(s.charAt(start + i * 2 + 1), 16);
+                if (hi < 0 || lo < 0) return false;
+                out[i] = (byte) (hi << 4 | lo);
+            }
+            return true;
+        }
+    }
+    
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // INSTALLED FILE INDEX
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // In-memory set of the files under versions, libraries and assets/objects, kept current by a
+    // WatchService so launch-time checks don't stat the disk. Hits are trusted; misses fall back to
+    // exists() since a file we just wrote may not have produced its event yet. Asset objects are
+    // held packed rather than as paths.
+    static class InstalledIndex implements Runnable {
+        private final List<Path> roots = new ArrayList<>();
+        private final Path objectsRoot;
+        private final Set<Path> files = ConcurrentHashMap.newKeySet();
+        private final AssetIndex objects = new AssetIndex(4096);
+        private final Map<WatchKey, Path> keys = new HashMap<>();
+        private final Set<Path> expectedDeletes = ConcurrentHashMap.newKeySet();
+        private final Consumer<Path> onExternalDelete;
+        private volatile WatchService watcher;
+        private volatile boolean ready;
+        
+        InstalledIndex(Consumer<Path> onExternalDelete, File objectsDir, File... roots) {
+            this.onExternalDelete = onExternalDelete;
+            this.objectsRoot = objectsDir.toPath().toAbsolutePath().normalize();
+            this.roots.add(objectsRoot);
+            for (File root : roots) this.roots.add(root.toPath().toAbsolutePath().normalize());
+        }
+        
+        void start() {
+            Thread t = new Thread(this, "ctx-installed-index");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            t.start();
+        }
+        
+        boolean contains(File file) {
+            if (ready && isTracked(file.toPath().toAbsolutePath().normalize())) return true;
+            return file.exists();
+        }
+        
+        boolean containsObject(AssetIndex index, int slot) {
+            if (ready) {
+                synchronized (objects) {
+                    if (objects.slotOf(index, slot) >= 0) return true;
+                }
+            }
+            String hash = index.hashAt(slot);
+            return Files.exists(objectsRoot.resolve(hash.substring(0, 2)).resolve(hash));
+        }
+        
+        // The launcher's own deletes (clean-up sweeps) are not reported back to it
+        void expectDelete(File file) {
+            expectedDeletes.add(file.toPath().toAbsolutePath().normalize());
+        }
+        
+        void cancelExpectedDelete(File file) {
+            expectedDeletes.remove(file.toPath().toAbsolutePath().normalize());
+        }
+        
+        void close() {
+            ready = false;
+            WatchService w = watcher;
+            if (w != null) {
+                try {
+                    w.close();
+                } catch (IOException e) {}
+            }
+        }
+        
+        @Override
+        public void run() {
+            try {
+                watcher = FileSystems.getDefault().newWatchService();
+                rescan();
+                
+                while (true) {
+                    WatchKey key = watcher.take();
+                    List<Path> deleted = new ArrayList<>();
+                    Path dir;
+                    synchronized (keys) {
+                        dir = keys.get(key);
+                    }
+                    
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            rescan();
+                            deleted.add(null);
+                            break;
+                        }
+                        if (dir == null) continue;
+                        Path path = dir.resolve((Path) event.context());
+                        
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                            boolean expected = expectedDeletes.remove(path);
+                            if (untrack(path)) {
+                                if (!expected && !isScratch(path)) deleted.add(path);
+                            } else if (files.removeIf(p -> p.startsWith(path))) {
+                                // A whole directory went away; its own key goes invalid below
+                                if (!expected) deleted.add(path);
+                            } else if (path.startsWith(objectsRoot) && !path.equals(objectsRoot)) {
+                                // An objects/xx prefix directory; a rescan is cheaper than matching hashes
+                                rescan();
+                                if (!expected) deleted.add(path);
+                            }
+                        } else if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                            walk(path);
+                        } else {
+                            track(path);
+                        }
+                    }
+                    
+                    if (!key.reset()) {
+                        synchronized (keys) {
+                            keys.remove(key);
+                        }
+                    }
+                    for (Path path : deleted) onExternalDelete.accept(path);
+                }
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                // Shut down or replaced by a new game directory
+            } catch (IOException e) {
+                ready = false;
+            }
+        }
+        
+        private void rescan() throws IOException {
+            synchronized (keys) {
+                for (WatchKey key : keys.keySet()) key.cancel();
+                keys.clear();
+            }
+            files.clear();
+            synchronized (objects) {
+                objects.clear();
+            }
+            for (Path root : roots) {
+                if (Files.isDirectory(root)) walk(root);
+            }
+            ready = true;
+        }
+        
+        private void walk(Path start) throws IOException {
+            Files.walkFileTree(start, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    WatchKey key = dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                    synchronized (keys) {
+                        keys.put(key, dir);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+                
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    track(file);
+                    return FileVisitResult.CONTINUE;
+                }
+                
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        
+        private boolean isObject(Path path) {
+            Path prefix = path.getParent();
+            return prefix != null && objectsRoot.equals(prefix.getParent()) && path.getFileName().toString().length() == 40;
+        }
+        
+        private void track(Path path) {
+            if (isObject(path)) {
+                synchronized (objects) {
+                    objects.add(path.getFileName().toString(), 0);
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        
+        private boolean untrack(Path path) {
+            if (isObject(path)) {
+                synchronized (objects) {
+                    return objects.remove(path.getFileName().toString());
+                }
+            }
+            return files.remove(path);
+        }
+        
+        private boolean isTracked(Path path) {
+            if (isObject(path)) {
+                synchronized (objects) {
+                    return objects.contains(path.getFileName().toString());
+                }
+            }
+            return files.contains(path);
+        }
+        
+        // Deleting our own scratch files is not a change to the installed state
+        private static boolean isScratch(Path path) {
+            String name = path.getFileName().toString();
+            return name.endsWith(".part") || name.endsWith(".tmp") || name.endsWith(".journal")
+                || name.endsWith(".etag") || name.endsWith(".lock");
+        }
+    }
+    
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // INSTALL JOURNAL
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // Append-only, one record per line:
+    //   B <plan>                 new plan for a version JSON (length:hash)
+    //   P <path> <url> <sha1>    planned file, missing at plan time
+    //   O <sha1> <size>          planned asset object, missing at plan time
+    //   M                        plan complete, everything missing has a P or O record
+    //   I <path> / OI <sha1>     download started
+    //   V <path> / OV <sha1>     file or object verified on disk
+    //   C                        everything planned verified
+    // A torn last line from a crash simply fails to parse and is ignored.
+    static class InstallJournal {
+        private final File file;
+        private final Path root;
+        private final Path objectsRoot;
+        private final Map<String, String[]> planned = new LinkedHashMap<>();
+        private final Set<String> started = new HashSet<>();
+        private final Set<String> verified = new HashSet<>();
+        private final AssetIndex objects = new AssetIndex(16);
+        private final BitSet startedObjects = new BitSet();
+        private final BitSet verifiedObjects = new BitSet();
+        private String plan = "";
+        private boolean planComplete;
+        private boolean clean;
+        private Writer out;
+        
+        InstallJournal(File file, File root) {
+            this.file = file;
+            this.root = root.toPath().toAbsolutePath();
+            this.objectsRoot = this.root.resolve("assets").resolve("objects");
+            if (!file.exists()) return;
+            
+            try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String[] f = line.split("\t");
+                    switch (f[0]) {
+                        case "B":
+                            reset();
+                            plan = f.length > 1 ? f[1] : "";
+                            break;
+                        case "P":
+                            if (f.length == 4) planned.put(f[1], new String[]{f[2], f[3]});
+                            break;
+                        case "O":
+                            if (f.length == 3) objects.add(f[1], Long.parseLong(f[2]));
+                            break;
+                        case "M":
+                            planComplete = true;
+                            break;
+                        case "I":
+                            if (f.length == 2) started.add(f[1]);
+                            break;
+                        case "V":
+                            if (f.length == 2) verified.add(f[1]);
+                            break;
+                        case "OI":
+                            if (f.length == 2) markObject(startedObjects, f[1]);
+                            break;
+                        case "OV":
+                            if (f.length == 2) markObject(verifiedObjects, f[1]);
+                            break;
+                        case "C":
+                            clean = planComplete;
+                            break;
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                reset();
+            }
+        }
+        
+        static String planId(String versionJson) {
+            return versionJson.length() + ":" + Integer.toHexString(versionJson.hashCode());
+        }
+        
+        boolean isClean(String planId) {
+            return clean && plan.equals(planId);
+        }
+        
+        boolean hasPlan(String planId) {
+            return planComplete && plan.equals(planId);
+        }
+        
+        int plannedCount() {
+            return planned.size() + objects.size();
+        }
+        
+        // {dest, url, sha1, "I" when a download was started but never verified}
+        List<String[]> outstandingFiles() {
+            List<String[]> files = new ArrayList<>();
+            for (Map.Entry<String, String[]> e : planned.entrySet()) {
+                if (verified.contains(e.getKey())) continue;
+                String[] v = e.getValue();
+                files.add(new String[]{root.resolve(e.getKey()).toString(), v[0], "-".equals(v[1]) ? null : v[1],
+                    started.contains(e.getKey()) ? "I" : "P"});
+            }
+            return files;
+        }
+        
+        AssetIndex objects() {
+            return objects;
+        }
+        
+        // Slots of objects() that still need work
+        int[] outstandingObjects() {
+            int[] slots = objects.slots();
+            int n = 0;
+            for (int slot : slots) {
+                if (!verifiedObjects.get(slot)) slots[n++] = slot;
+            }
+            return Arrays.copyOf(slots, n);
+        }
+        
+        boolean objectStarted(int slot) {
+            return startedObjects.get(slot);
+        }
+        
+        synchronized void beginPlan(String planId, List<String[]> missingFiles, AssetIndex missingObjects) throws IOException {
+            close();
+            reset();
+            plan = planId;
+            
+            file.getParentFile().mkdirs();
+            try (FileOutputStream fos = new FileOutputStream(file);
+                 Writer w = new BufferedWriter(new OutputStreamWriter(fos, StandardCharsets.UTF_8))) {
+                w.write("B\t" + planId + "\n");
+                for (String[] f : missingFiles) {
+                    String rel = relative(f[0]);
+                    String sha1 = f[2] == null ? "-" : f[2];
+                    planned.put(rel, new String[]{f[1], sha1});
+                    w.write("P\t" + rel + "\t" + f[1] + "\t" + sha1 + "\n");
+                }
+                for (int slot : missingObjects.slots()) {
+                    long size = missingObjects.sizeAt(slot);
+                    w.write("O\t" + missingObjects.hashAt(slot) + "\t" + size + "\n");
+                    objects.add(missingObjects.hashes, slot * 20, size);
+                }
+                w.write("M\n");
+                w.flush();
+                fos.getFD().sync();
+            }
+            planComplete = true;
+        }
+        
+        synchronized void started(String dest) throws IOException {
+            String hash = objectHash(dest);
+            if (hash != null) {
+                markObject(startedObjects, hash);
+                append("OI\t" + hash);
+                return;
+            }
+            String rel = relative(dest);
+            started.add(rel);
+            append("I\t" + rel);
+        }
+        
+        synchronized void verified(String dest) throws IOException {
+            String hash = objectHash(dest);
+            if (hash != null) {
+                markObject(verifiedObjects, hash);
+                append("OV\t" + hash);
+                return;
+            }
+            String rel = relative(dest);
+            verified.add(rel);
+            append("V\t" + rel);
+        }
+        
+        // Writes C once everything planned is verified; the journal is compacted at the same time
+        synchronized boolean finish() throws IOException {
+            if (clean) return true;
+            if (!planComplete || !verified.containsAll(planned.keySet())) return false;
+            for (int slot : objects.slots()) {
+                if (!verifiedObjects.get(slot)) return false;
+            }
+            close();
+            
+            File tmp = new File(file.getPath() + ".tmp");
+            try (FileOutputStream fos = new FileOutputStream(tmp)) {
+                fos.write(("B\t" + plan + "\nM\nC\n").getBytes(StandardCharsets.UTF_8));
+                fos.getFD().sync();
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            String keep = plan;
+            reset();
+            plan = keep;
+            planComplete = true;
+            clean = true;
+            return true;
+        }
+        
+        synchronized void close() {
+            if (out == null) return;
+            try {
+                out.close();
+            } catch (IOException e) {}
+            out = null;
+        }
+        
+        private void reset() {
+            planned.clear();
+            started.clear();
+            verified.clear();
+            objects.clear();
+            startedObjects.clear();
+            verifiedObjects.clear();
+            plan = "";
+            planComplete = false;
+            clean = false;
+        }
+        
+        private void markObject(BitSet bits, String hash) {
+            int slot = objects.slotOf(hash);
+            if (slot >= 0) bits.set(slot);
+        }
+        
+        private String objectHash(String dest) {
+            Path p = Paths.get(dest).toAbsolutePath();
+            return p.startsWith(objectsRoot) && objects.contains(p.getFileName().toString()) ? p.getFileName().toString() : null;
+        }
+        
+        private void append(String record) throws IOException {
+            if (out == null) {
+                out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+            }
+            out.write(record);
+            out.write('\n');
+            out.flush();
+        }
+        
+        private String relative(String path) {
+            Path p = Paths.get(path).toAbsolutePath();
+            return (p.startsWith(root) ? root.relativize(p) : p).toString().replace('\\', '/');
+        }
+    }
+    
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // MANIFEST STREAM
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // Splits version_manifest.json into pieces as the bytes arrive: each object directly under the
+    // root ("latest") and each object in a root-level array ("versions") is handed over as raw JSON
+    // the moment its closing brace is read. Field order and unknown fields don't matter.
+    static class ManifestStream {
+        static void read(Reader in, Consumer<String> member, Consumer<String> entry) throws IOException {
+            char[] stack = new char[64];
+            int depth = 0;
+            StringBuilder capture = null;
+            int captureDepth = 0;
+            boolean captureEntry = false;
+            boolean inString = false;
+            boolean escaped = false;
+            
+            int c;
+            while ((c = in.read()) != -1) {
+                if (capture != null) capture.append((char) c);
+                if (inString) {
+                    if (escaped) escaped = false;
+                    else if (c == '\\') escaped = true;
+                    else if (c == '"') inString = false;
+                    continue;
+                }
+                
+                switch (c) {
+                    case '"':
+                        inString = true;
+                        break;
+                    case '{':
+                    case '[':
+                        if (depth == stack.length) throw new IOException("Manifest nested too deeply");
+                        if (capture == null && c == '{' && (depth == 1 || (depth == 2 && stack[1] == '['))) {
+                            capture = new StringBuilder("{");
+                            captureDepth = depth;
+                            captureEntry = depth == 2;
+                        }
+                        stack[depth++] = (char) c;
+                        break;
+                    case '}':
+                    case ']':
+                        if (depth == 0) throw new IOException("Malformed manifest");
+                        depth--;
+                        if (capture != null && depth == captureDepth) {
+                            (captureEntry ? entry : member).accept(capture.toString());
+                            capture = null;
+                        }
+                        break;
+                }
+            }
+            if (depth != 0) throw new IOException("Manifest truncated");
+        }
+    }
+    
+    // Copies everything read from a stream into a file on the side
+    static class TeeInputStream extends FilterInputStream {
+        private final OutputStream copy;
+        
+        TeeInputStream(InputStream in, OutputStream copy) {
+            super(in);
+            this.copy = copy;
+        }
+        
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) copy.write(b);
+            return b;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) copy.write(b, off, n);
+            return n;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                copy.close();
+            }
+        }
+    }
+    
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // PAGE CACHE PRE-WARM
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // Reads a launch's classpath jars and learned startup assets ahead of the game, so a cold start
+    // on slow disks or network homes finds them in the page cache. Files are read through rather
+    // than mapped, since a mapping lingers until GC and keeps the jar locked on Windows.
+    //
+    // The startup asset set is learned per version by sampling /proc/<pid>/fd of the game until its
+    // startup milestones complete. Short-lived opens can slip between samples, so each session's
+    // finds are added to the previous ones.
+    static class PageCacheWarmer {
+        static final int MAX_STARTUP_ASSETS = 4096;
+        private static final long SAMPLE_INTERVAL_MS = 100;
+        private static final ExecutorService pool = Executors.newFixedThreadPool(4, r -> {
+            Thread t = new Thread(r, "prewarm");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        
+        // Completes with {files, bytes, ms}
+        static CompletableFuture<long[]> warm(List<File> files) {
+            long start = System.nanoTime();
+            AtomicLong bytes = new AtomicLong();
+            AtomicInteger count = new AtomicInteger();
+            CompletableFuture<?>[] reads = new CompletableFuture<?>[files.size()];
+            for (int i = 0; i < reads.length; i++) {
+                File file = files.get(i);
+                reads[i] = CompletableFuture.runAsync(() -> {
+                    try {
+                        bytes.addAndGet(touch(file));
+                        count.incrementAndGet();
+                    } catch (IOException e) {
+                        // Missing or unreadable files are simply not warmed
+                    }
+                }, pool);
+            }
+            return CompletableFuture.allOf(reads).thenApply(v ->
+                new long[] {count.get(), bytes.get(), (System.nanoTime() - start) / 1_000_000});
+        }
+        
+        private static long touch(File file) throws IOException {
+            long length = file.length();
+            try (InputStream in = new FileInputStream(file)) {
+                byte[] buffer = new byte[65536];
+                while (in.read(buffer) != -1) {
+                    // discard
+                }
+            }
+            return length;
+        }
+        
+        static Set<String> loadStartupAssets(File list) {
+            Set<String> hashes = new TreeSet<>();
+            if (!list.isFile()) return hashes;
+            try {
+                for (String line : Files.readAllLines(list.toPath(), StandardCharsets.US_ASCII)) {
+                    if (line.length() == 40) hashes.add(line);
+                }
+            } catch (IOException e) {
+                // Relearned on the next launch
+            }
+            return hashes;
+        }
+        
+        // Samples the game's open asset objects on a daemon thread until done, exit or maxMs
+        static void learnStartupAssets(ProcessHandle game, List<File> objectDirs, File list, BooleanSupplier done, long maxMs) {
+            Path fdDir = Paths.get("/proc/" + game.pid() + "/fd");
+            if (!Files.isDirectory(fdDir)) return;
+            // fd links point at real paths, so a symlinked .minecraft or store has to be resolved too
+            List<Path> roots = new ArrayList<>();
+            for (File dir : objectDirs) {
+                try {
+                    roots.add(dir.toPath().toRealPath());
+                } catch (IOException e) {
+                    // Not created yet, nothing under it can be open
+                }
+            }
+            Thread sampler = new Thread(() -> {
+                Set<String> seen = new TreeSet<>();
+                long deadline = System.currentTimeMillis() + maxMs;
+                while (game.isAlive() && !done.getAsBoolean() && System.currentTimeMillis() < deadline) {
+                    try (DirectoryStream<Path> fds = Files.newDirectoryStream(fdDir)) {
+                        for (Path fd : fds) {
+                            try {
+                                Path target = Files.readSymbolicLink(fd);
+                                for (Path root : roots) {
+                                    if (target.startsWith(root)) seen.add(target.getFileName().toString());
+                                }
+                            } catch (IOException e) {
+                                // Closed between listing and reading
+                            }
+                        }
+                        Thread.sleep(SAMPLE_INTERVAL_MS);
+                    } catch (IOException | InterruptedException e) {
+                        break;
+                    }
+                }
+                if (seen.isEmpty()) return;
+                
+                Set<String> merged = loadStartupAssets(list);
+                int before = merged.size();
+                for (String hash : seen) {
+                    if (merged.size() >= MAX_STARTUP_ASSETS) break;
+                    if (hash.length() == 40) merged.add(hash);
+                }
+                if (merged.size() == before) return;
+                try {
+                    File part = new File(list.getPath() + ".part");
+                    Files.write(part.toPath(), merged, StandardCharsets.US_ASCII);
+                    Files.move(part.toPath(), list.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException e) {
+                    // Keep the previous set
+                }
+            }, "startup-asset-sampler");
+            sampler.setDaemon(true);
+            sampler.start();
+        }
+    }
+    
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // CONSOLIDATED CLASSPATH
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // Merges a launch plan's classpath into one STORED jar, so the game JVM opens one central
+    // directory instead of searching a hundred jars in turn. Duplicates follow classpath order (first
+    // wins, as the JVM would resolve them) except:
+    // - jar manifests, signatures, INDEX.LIST and module-info are dropped; one manifest is written,
+    //   Multi-Release when any input was
+    // - META-INF/services files are concatenated
+    // - Log4j2Plugins.dat plugin caches are merged, since log4j reads only the first one it finds
+    static class ConsolidatedClasspath {
+        private static final String LOG4J_PLUGINS = "META-INF/org/apache/logging/log4j/core/config/plugins/Log4j2Plugins.dat";
+        
+        static void build(List<String> classpath, File target) throws IOException {
+            boolean multiRelease = false;
+            for (String entry : classpath) {
+                try (java.util.jar.JarFile jar = new java.util.jar.JarFile(entry)) {
+                    java.util.jar.Manifest manifest = jar.getManifest();
+                    if (manifest != null && "true".equalsIgnoreCase(manifest.getMainAttributes().getValue("Multi-Release"))) {
+                        multiRelease = true;
+                    }
+                }
+            }
+            
+            // Unique per build, so a crashed or concurrent builder never shares a half-written file
+            File part = Files.createTempFile(target.getParentFile().toPath(), target.getName() + ".", ".part").toFile();
+            try {
+                writeMerged(classpath, part, multiRelease);
+                Files.move(part.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                part.delete();
+            }
+        }
+        
+        // A cached jar is only reused if its central directory reads back
+        static boolean isComplete(File jar) {
+            try (ZipFile zip = new ZipFile(jar)) {
+                return zip.getEntry("META-INF/MANIFEST.MF") != null;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        
+        private static void writeMerged(List<String> classpath, File part, boolean multiRelease) throws IOException {
+            Set<String> written = new HashSet<>();
+            Map<String, Set<String>> services = new TreeMap<>();
+            Map<String, Map<String, byte[]>> plugins = new TreeMap<>();
+            try (ZipOutputStream out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(part), 1 << 16))) {
+                out.setMethod(ZipOutputStream.STORED);
+                String manifest = "Manifest-Version: 1.0\r\nCreated-By: " + LAUNCHER_NAME + "\r\n"
+                    + (multiRelease ? "Multi-Release: true\r\n" : "") + "\r\n";
+                putStored(out, "META-INF/MANIFEST.MF", manifest.getBytes(StandardCharsets.UTF_8), 0);
+                
+                for (String entry : classpath) {
+                    try (ZipFile zip = new ZipFile(entry)) {
+                        Enumeration<? extends ZipEntry> entries = zip.entries();
+                        while (entries.hasMoreElements()) {
+                            ZipEntry e = entries.nextElement();
+                            String name = e.getName();
+                            if (dropped(name) || written.contains(name)) continue;
+                            if (name.startsWith("META-INF/services/") && !e.isDirectory()) {
+                                Set<String> providers = services.computeIfAbsent(name, k -> new LinkedHashSet<>());
+                                try (BufferedReader reader = new BufferedReader(new InputStreamReader(zip.getInputStream(e), StandardCharsets.UTF_8))) {
+                                    String line;
+                                    while ((line = reader.readLine()) != null) {
+                                        if (!line.trim().isEmpty()) providers.add(line.trim());
+                                    }
+                                }
+                            } else if (name.equals(LOG4J_PLUGINS)) {
+                                try (InputStream in = zip.getInputStream(e)) {
+                                    readLog4jPlugins(in, plugins);
+                                }
+                            } else {
+                                written.add(name);
+                                try (InputStream in = zip.getInputStream(e)) {
+                                    putStored(out, name, in.readAllBytes(), e.getTime());
+                                }
+                            }
+                        }
+                    }
+                }
+                
+                for (Map.Entry<String, Set<String>> service : services.entrySet()) {
+                    putStored(out, service.getKey(), (String.join("\n", service.getValue()) + "\n").getBytes(StandardCharsets.UTF_8), 0);
+                }
+                if (!plugins.isEmpty()) {
+                    putStored(out, LOG4J_PLUGINS, writeLog4jPlugins(plugins), 0);
+                }
+            }
+        }
+        
+        private static boolean dropped(String name) {
+            if (name.equals("META-INF/MANIFEST.MF") || name.equals("META-INF/INDEX.LIST")) return true;
+            if (name.endsWith("module-info.class")) return true;
+            if (name.startsWith("META-INF/") && name.indexOf('/', 9) == -1) {
+                String upper = name.toUpperCase(Locale.ROOT);
+                return upper.endsWith(".SF") || upper.endsWith(".RSA") || upper.endsWith(".DSA")
+                    || upper.endsWith(".EC") || upper.startsWith("META-INF/SIG-");
+            }
+            return false;
+        }
+        
+        private static void putStored(ZipOutputStream out, String name, byte[] data, long time) throws IOException {
+            ZipEntry entry = new ZipEntry(name);
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(data.length);
+            entry.setCompressedSize(data.length);
+            entry.setCrc(crc.getValue());
+            if (time > 0) entry.setTime(time);
+            out.putNextEntry(entry);
+            out.write(data);
+            out.closeEntry();
+        }
+        
+        // Log4j2Plugins.dat: int categories, then per category a UTF name, int count and per plugin
+        // UTF key, UTF class, UTF name, boolean printable, boolean defer. Plugins keep their raw
+        // record; the first jar to declare a key wins.
+        private static void readLog4jPlugins(InputStream in, Map<String, Map<String, byte[]>> plugins) throws IOException {
+            DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+            int categories = data.readInt();
+            for (int c = 0; c < categories; c++) {
+                Map<String, byte[]> category = plugins.computeIfAbsent(data.readUTF(), k -> new TreeMap<>());
+                int count = data.readInt();
+                for (int i = 0; i < count; i++) {
+                    ByteArrayOutputStream record = new ByteArrayOutputStream();
+                    DataOutputStream out = new DataOutputStream(record);
+                    String key = data.readUTF();
+                    out.writeUTF(key);
+                    out.writeUTF(data.readUTF());
+                    out.writeUTF(data.readUTF());
+                    out.writeBoolean(data.readBoolean());
+                    out.writeBoolean(data.readBoolean());
+                    category.putIfAbsent(key, record.toByteArray());
+                }
+            }
+        }
+        
+        private static byte[] writeLog4jPlugins(Map<String, Map<String, byte[]>> plugins) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(plugins.size());
+            for (Map.Entry<String, Map<String, byte[]>> category : plugins.entrySet()) {
+                out.writeUTF(category.getKey());
+                out.writeInt(category.getValue().size());
+                for (byte[] record : category.getValue().values()) {
+                    out.write(record);
+                }
+            }
+            out.flush();
+            return bytes.toByteArray();
+        }
+        
+        // Loads (without initialising) every class named in the classpath through a fresh loader:
+        // {elapsed ms, loaded, failed}. Failures are classes whose optional dependencies are absent.
+        static long[] loadAll(List<String> classpath, List<String> classNames) throws IOException {
+            URL[] urls = new URL[classpath.size()];
+            for (int i = 0; i < urls.length; i++) {
+                urls[i] = new File(classpath.get(i)).toURI().toURL();
+            }
+            long loaded = 0, failed = 0;
+            long start = System.nanoTime();
+            try (URLClassLoader loader = new URLClassLoader(urls, ClassLoader.getPlatformClassLoader())) {
+                for (String name : classNames) {
+                    try {
+                        Class.forName(name, false, loader);
+                        loaded++;
+                    } catch (ClassNotFoundException | LinkageError e) {
+                        failed++;
+                    }
+                }
+            }
+            return new long[] {(System.nanoTime() - start) / 1_000_000, loaded, failed};
+        }
+        
+        static List<String> classNames(List<String> classpath) throws IOException {
+            Set<String> names = new LinkedHashSet<>();
+            for (String entry : classpath) {
+                try (ZipFile zip = new ZipFile(entry)) {
+                    Enumeration<? extends ZipEntry> entries = zip.entries();
+                    while (entries.hasMoreElements()) {
+                        String name = entries.nextElement().getName();
+                        if (name.endsWith(".class") && !name.startsWith("META-INF/") && !name.endsWith("module-info.class")) {
+                            names.add(name.substring(0, name.length() - 6).replace('/', '.'));
+                        }
+                    }
+                }
+            }
+            return new ArrayList<>(names);
+        }
+    }
+    
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // JVM PROFILES
+    // ═══════════════════════════════════════════════════════════════════════════════
+    enum JvmProfile {
+        CUSTOM("Custom (JVM Arguments field)"),
+        AUTO("Auto"),
+        THROUGHPUT("Throughput (G1)"),
+        LOW_PAUSE("Low pause (ZGC / Shenandoah)"),
+        LOW_MEMORY("Low memory");
+        
+        final String label;
+        
+        JvmProfile(String label) {
+            this.label = label;
+        }
+        
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+    
+    // What the tuning is derived from: physical RAM, cores, transparent huge pages and which
+    // collectors the game's java accepts. Collector support is probed with "java <flag> -version"
+    // once per flag and cached.
+    static class MachineProfile {
+        final long physicalBytes;
+        final int cores;
+        final boolean transparentHugePages;
+        private final String javaPath;
+        private final Map<String, Boolean> supported = new ConcurrentHashMap<>();
+        
+        @SuppressWarnings("deprecation") // getTotalMemorySize() is JDK 14+
+        MachineProfile(String javaPath) {
+            this.javaPath = javaPath;
+            this.cores = Runtime.getRuntime().availableProcessors();
+            long physical = 0;
+            java.lang.management.OperatingSystemMXBean os = java.lang.management.ManagementFactory.getOperatingSystemMXBean();
+            if (os instanceof com.sun.management.OperatingSystemMXBean) {
+                physical = ((com.sun.management.OperatingSystemMXBean) os).getTotalPhysicalMemorySize();
+            }
+            this.physicalBytes = physical > 0 ? physical : 8L << 30;
+            this.transparentHugePages = readThpMode().matches(".*\\[(always|madvise)\\].*");
+        }
+        
+        private static String readThpMode() {
+            try {
+                return new String(Files.readAllBytes(Paths.get("/sys/kernel/mm/transparent_hugepage/enabled")), StandardCharsets.US_ASCII);
+            } catch (IOException e) {
+                return "";
+            }
+        }
+        
+        int physicalGb() {
+            return (int) (physicalBytes >> 30);
+        }
+        
+        boolean supports(String flag) {
+            return probe(flag) || needsUnlock(flag);
+        }
+        
+        // Still experimental in this java (ZGC before 15, Shenandoah in some 11-14 builds)
+        boolean needsUnlock(String flag) {
+            return !probe(flag) && probe("-XX:+UnlockExperimentalVMOptions " + flag);
+        }
+        
+        private boolean probe(String flags) {
+            return supported.computeIfAbsent(flags, f -> {
+                try {
+                    List<String> command = new ArrayList<>();
+                    command.add(javaPath);
+                    command.addAll(Arrays.asList(f.split(" ")));
+                    command.add("-version");
+                    Process probe = new ProcessBuilder(command)
+                        .redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+                    return probe.waitFor(10, TimeUnit.SECONDS) && probe.exitValue() == 0;
+                } catch (IOException | InterruptedException e) {
+                    return false;
+                }
+            });
+        }
+        
+        private void addCollector(List<String> args, String flag) {
+            if (needsUnlock(flag)) args.add("-XX:+UnlockExperimentalVMOptions");
+            args.add(flag);
+        }
+        
+        // Auto: small machines get the low-memory profile, big many-core machines a concurrent collector
+        JvmProfile resolve(JvmProfile profile) {
+            if (profile != JvmProfile.AUTO) return profile;
+            if (physicalGb() <= 4) return JvmProfile.LOW_MEMORY;
+            if (physicalGb() >= 16 && cores >= 8) return JvmProfile.LOW_PAUSE;
+            return JvmProfile.THROUGHPUT;
+        }
+        
+        // Heap suggested for the Play tab slider; legacy (Java 8) versions need about half
+        int recommendedHeapGb(JvmProfile profile, int requiredJava) {
+            int base = requiredJava <= 8 ? 2 : 4;
+            int ceiling = Math.max(1, physicalGb() / 2);
+            switch (resolve(profile)) {
+                case LOW_MEMORY:
+                    return Math.min(ceiling, base / 2 + 1);
+                case LOW_PAUSE:
+                    // Concurrent collectors need headroom to keep up with allocation
+                    return Math.min(ceiling, Math.min(10, Math.max(base + 2, physicalGb() / 4)));
+                default:
+                    return Math.min(ceiling, Math.min(8, Math.max(base, physicalGb() / 4)));
+            }
+        }
+        
+        // Everything after -Xmx for a resolved, non-custom profile
+        List<String> tuningArgs(JvmProfile profile, int heapGb) {
+            List<String> args = new ArrayList<>();
+            int javaFeature = Runtime.version().feature();
+            // Pre-touching the whole heap costs startup time, so only when it fits comfortably in RAM
+            boolean preTouch = heapGb <= physicalGb() / 4;
+            
+            switch (profile) {
+                case THROUGHPUT:
+                    args.add("-Xms" + heapGb + "G");
+                    args.add("-XX:+UseG1GC");
+                    args.add("-XX:MaxGCPauseMillis=200");
+                    args.add("-XX:G1HeapRegionSize=" + (heapGb >= 12 ? 32 : heapGb >= 6 ? 16 : 8) + "M");
+                    args.add("-XX:+ParallelRefProcEnabled");
+                    args.add("-XX:+DisableExplicitGC");
+                    if (preTouch) args.add("-XX:+AlwaysPreTouch");
+                    break;
+                case LOW_PAUSE:
+                    args.add("-Xms" + heapGb + "G");
+                    if (supports("-XX:+UseZGC")) {
+                        addCollector(args, "-XX:+UseZGC");
+                        if (javaFeature == 21 || javaFeature == 22) args.add("-XX:+ZGenerational");
+                    } else if (supports("-XX:+UseShenandoahGC")) {
+                        addCollector(args, "-XX:+UseShenandoahGC");
+                    } else {
+                        args.add("-XX:+UseG1GC");
+                        args.add("-XX:MaxGCPauseMillis=50");
+                    }
+                    args.add("-XX:+DisableExplicitGC");
+                    if (preTouch) args.add("-XX:+AlwaysPreTouch");
+                    break;
+                case LOW_MEMORY:
+                    // Fewer visible CPUs means fewer GC and worker threads, each with its own stack and buffers
+                    args.add("-Xms256M");
+                    args.add("-XX:ActiveProcessorCount=" + Math.max(1, Math.min(cores, Math.max(2, cores / 2))));
+                    if (cores <= 2) {
+                        args.add("-XX:+UseSerialGC");
+                    } else {
+                        args.add("-XX:+UseG1GC");
+                        // Hand unused heap back to the OS while idle in menus
+                        if (javaFeature >= 12) args.add("-XX:G1PeriodicGCInterval=15000");
+                    }
+                    args.add("-XX:MinHeapFreeRatio=10");
+                    args.add("-XX:MaxHeapFreeRatio=30");
+                    if (javaFeature >= 18) args.add("-XX:+UseStringDeduplication");
+                    break;
+                default:
+                    throw new IllegalArgumentException("Not a concrete profile: " + profile);
+            }
+            if (transparentHugePages && profile != JvmProfile.LOW_MEMORY) args.add("-XX:+UseTransparentHugePages");
+            return args;
+        }
+    }
+    
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // PROCESS SCHEDULING
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // Linux only, through util-linux wrappers that exec the next command, so the game keeps the pid
+    // the supervisor watches: taskset (or a systemd-run scope with AllowedCPUs) for the CPU set, nice
+    // and ionice for priorities. The launcher's own download workers are demoted with chrt -b and
+    // ionice idle while games run. Both are reversible without privileges, unlike raising nice.
+    static class LinuxScheduling {
+        static final boolean SUPPORTED = System.getProperty("os.name").toLowerCase().contains("linux");
+        static final String[] IO_PRIORITIES = {"Default IO", "IO high", "IO low", "IO idle"};
+        private static final Pattern CPU_LIST = Pattern.compile("\\d+(-\\d+)?(,\\d+(-\\d+)?)*");
+        
+        static String findTool(String name) {
+            for (String dir : System.getenv().getOrDefault("PATH", "/usr/bin:/bin").split(File.pathSeparator)) {
+                File tool = new File(dir, name);
+                if (tool.canExecute()) return tool.getAbsolutePath();
+            }
+            return null;
+        }
+        
+        // Wrapper commands to put in front of the game's java; problems are reported and skipped
+        static List<String> launchPrefix(String cpuSet, int nice, int ioPriority, Consumer<String> log) {
+            List<String> prefix = new ArrayList<>();
+            if (!SUPPORTED) {
+                if (!cpuSet.isEmpty() || nice != 0 || ioPriority != 0) log.accept("Game scheduling options only apply on Linux");
+                return prefix;
+            }
+            if (!cpuSet.isEmpty()) {
+                String taskset = findTool("taskset"), systemdRun = findTool("systemd-run");
+                if (!CPU_LIST.matcher(cpuSet).matches()) {
+                    log.accept("Ignoring CPU set '" + cpuSet + "', expected a list like 0-3,8");
+                } else if (taskset != null) {
+                    prefix.addAll(Arrays.asList(taskset, "-c", cpuSet));
+                } else if (systemdRun != null) {
+                    prefix.addAll(Arrays.asList(systemdRun, "--user", "--scope", "--quiet", "-p", "AllowedCPUs=" + cpuSet));
+                } else {
+                    log.accept("Neither taskset nor systemd-run found, CPU set not applied");
+                }
+            }
+            if (nice > 0) {
+                String niceTool = findTool("nice");
+                if (niceTool != null) prefix.addAll(Arrays.asList(niceTool, "-n", String.valueOf(nice)));
+                else log.accept("nice not found, priority not applied");
+            }
+            if (ioPriority > 0) {
+                String ionice = findTool("ionice");
+                if (ionice != null) {
+                    prefix.add(ionice);
+                    prefix.addAll(ioniceClass(ioPriority));
+                } else {
+                    log.accept("ionice not found, IO priority not applied");
+                }
+            }
+            return prefix;
+        }
+        
+        private static List<String> ioniceClass(int ioPriority) {
+            switch (ioPriority) {
+                case 1: return Arrays.asList("-c", "2", "-n", "0");
+                case 2: return Arrays.asList("-c", "2", "-n", "7");
+                default: return Arrays.asList("-c", "3");
+            }
+        }
+        
+        // Threads of this JVM whose name starts with prefix; the kernel keeps the first 15 characters
+        static List<String> threadIds(String namePrefix) {
+            List<String> tids = new ArrayList<>();
+            File[] tasks = new File("/proc/self/task").listFiles();
+            if (tasks == null) return tids;
+            for (File task : tasks) {
+                try {
+                    String comm = new String(Files.readAllBytes(new File(task, "comm").toPath()), StandardCharsets.UTF_8).trim();
+                    if (comm.startsWith(namePrefix)) tids.add(task.getName());
+                } catch (IOException e) {
+                    // Thread exited
+                }
+            }
+            return tids;
+        }
+        
+        // Kernel thread id of the calling thread, or null when /proc is unavailable
+        static String currentThreadId() {
+            try {
+                return Files.readSymbolicLink(Paths.get("/proc/thread-self")).getFileName().toString();
+            } catch (IOException | UnsupportedOperationException e) {
+                return null;
+            }
+        }
         
-        String osName = getOsName();
+        static void demoteThreads(String namePrefix, boolean demoted) {
+            if (!SUPPORTED) return;
+            for (String tid : threadIds(namePrefix)) {
+                demoteThread(tid, demoted);
+            }
+        }
         
-        int pos = 0;
-        while ((pos = librariesArray.indexOf("{", pos)) != -1) {
-            int objEnd = findMatchingBrace(librariesArray, pos);
-            String libObj = librariesArray.substring(pos, objEnd + 1);
+        static void demoteThread(String tid, boolean demoted) {
+            String chrt = findTool("chrt"), ionice = findTool("ionice");
+            if (chrt != null) run(chrt, demoted ? "-b" : "-o", "-p", "0", tid);
+            if (ionice != null) {
+                List<String> cmd = new ArrayList<>(Collections.singletonList(ionice));
+                cmd.addAll(demoted ? Arrays.asList("-c", "3") : Arrays.asList("-c", "2", "-n", "4"));
+                cmd.addAll(Arrays.asList("-p", tid));
+                run(cmd.toArray(new String[0]));
+            }
+        }
+        
+        private static void run(String... command) {
+            try {
+                new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start().waitFor(5, TimeUnit.SECONDS);
+            } catch (IOException | InterruptedException e) {
+                // Best effort
+            }
+        }
+    }
+    
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // GAME SUPERVISOR
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // Samples a launched game through ProcessHandle: CPU time of the game and its descendants, resident
+    // memory and thread count (from /proc on Linux, -1 elsewhere). Keeps the last MAX_SAMPLES for the
+    // Monitor chart and running peaks/totals for the session summary written when the game exits.
+    static class GameSupervisor {
+        static final int MAX_SAMPLES = 600;
+        
+        static class Sample {
+            final long time;        // ms since launch
+            final double cpu;       // percent of one core, descendants included
+            final long rss;         // bytes, descendants included
+            final int threads;
+            final int descendants;
             
-            if (!checkLibraryRules(libObj, osName)) {
-                pos = objEnd + 1;
-                continue;
+            Sample(long time, double cpu, long rss, int threads, int descendants) {
+                this.time = time;
+                this.cpu = cpu;
+                this.rss = rss;
+                this.threads = threads;
+                this.descendants = descendants;
+            }
+        }
+        
+        final String version;
+        final long xmxBytes;
+        private final File gcLog;
+        private final ProcessHandle handle;
+        private final long startNanos = System.nanoTime();
+        private final ArrayDeque<Sample> samples = new ArrayDeque<>();
+        private final ScheduledExecutorService timer;
+        private final Runnable onSample;
+        private long lastCpuNanos, lastWallNanos = startNanos;
+        private long cpuNanos, peakRss = -1;
+        private int peakThreads, peakDescendants;
+        
+        GameSupervisor(Process process, String version, long xmxBytes, File gcLog, long intervalMs, Runnable onSample) {
+            this.handle = process.toHandle();
+            this.version = version;
+            this.xmxBytes = xmxBytes;
+            this.gcLog = gcLog;
+            this.onSample = onSample;
+            this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "game-supervisor-" + handle.pid());
+                t.setDaemon(true);
+                return t;
+            });
+            timer.scheduleAtFixedRate(this::sample, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+        
+        long pid() {
+            return handle.pid();
+        }
+        
+        private void sample() {
+            if (!handle.isAlive()) return;
+            List<ProcessHandle> tree = new ArrayList<>();
+            tree.add(handle);
+            handle.descendants().forEach(tree::add);
+            
+            long cpu = 0, rss = 0;
+            int threads = 0;
+            boolean hasProc = false;
+            for (ProcessHandle p : tree) {
+                cpu += p.info().totalCpuDuration().map(d -> d.toNanos()).orElse(0L);
+                long[] status = procStatus(p.pid());
+                if (status != null) {
+                    hasProc = true;
+                    rss += status[0];
+                    threads += (int) status[1];
+                }
             }
             
-            int downloadsPos = libObj.indexOf("\"downloads\"");
-            if (downloadsPos != -1) {
-                int artifactPos = libObj.indexOf("\"artifact\"", downloadsPos);
-                if (artifactPos != -1) {
-                    String path = extractJsonValue(libObj.substring(artifactPos), "path");
-                    if (path != null) {
-                        String fullPath = librariesDir.getAbsolutePath() + "/" + path;
-                        if (new File(fullPath).exists() && !classpathList.contains(fullPath)) {
-                            classpathList.add(fullPath);
-                        }
+            long now = System.nanoTime();
+            // Descendants that exited take their CPU time with them, so only count forward progress.
+            // The baseline is the spawn (0 ns at startNanos), so JVM start-up counts too.
+            long delta = Math.max(0, cpu - lastCpuNanos);
+            double percent = 100.0 * delta / Math.max(1, now - lastWallNanos);
+            Sample sample = new Sample((now - startNanos) / 1_000_000, percent,
+                hasProc ? rss : -1, hasProc ? threads : -1, tree.size() - 1);
+            
+            synchronized (this) {
+                cpuNanos += delta;
+                lastCpuNanos = cpu;
+                lastWallNanos = now;
+                peakRss = Math.max(peakRss, sample.rss);
+                peakThreads = Math.max(peakThreads, sample.threads);
+                peakDescendants = Math.max(peakDescendants, sample.descendants);
+                if (samples.size() == MAX_SAMPLES) samples.removeFirst();
+                samples.addLast(sample);
+            }
+            onSample.run();
+        }
+        
+        // {VmRSS bytes, Threads} from /proc/<pid>/status, null where /proc is unavailable
+        static long[] procStatus(long pid) {
+            File status = new File("/proc/" + pid + "/status");
+            if (!status.isFile()) return null;
+            long[] result = {0, 0};
+            try (BufferedReader reader = new BufferedReader(new FileReader(status))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("VmRSS:")) {
+                        result[0] = Long.parseLong(line.replaceAll("\\D", "")) * 1024;
+                    } else if (line.startsWith("Threads:")) {
+                        result[1] = Long.parseLong(line.replaceAll("\\D", ""));
                     }
                 }
+            } catch (IOException | NumberFormatException e) {
+                return null;
             }
-            
-            pos = objEnd + 1;
+            return result;
+        }
+        
+        synchronized List<Sample> samples() {
+            return new ArrayList<>(samples);
+        }
+        
+        // Stops sampling; call once the process has exited
+        synchronized String finish() {
+            timer.shutdownNow();
+            long uptimeMs = (System.nanoTime() - startNanos) / 1_000_000;
+            StringBuilder summary = new StringBuilder();
+            summary.append(String.format("%tF %<tT version=%s uptime=%ds", new Date(), version, uptimeMs / 1000));
+            summary.append(String.format(" avgCpu=%.0f%%", 100.0 * cpuNanos / Math.max(1, uptimeMs * 1_000_000)));
+            if (peakRss >= 0) {
+                summary.append(String.format(" peakRss=%dMB xmx=%dMB (%.0f%%) peakThreads=%d",
+                    peakRss >> 20, xmxBytes >> 20, 100.0 * peakRss / xmxBytes, peakThreads));
+            }
+            summary.append(" peakChildren=").append(peakDescendants);
+            double[] pauses = gcPauses(gcLog);
+            if (pauses[0] > 0) {
+                summary.append(String.format(" gcPauses=%.0f total=%.0fms max=%.1fms", pauses[0], pauses[1], pauses[2]));
+            }
+            return summary.toString();
+        }
+        
+        // Stop-the-world pauses in a -Xlog:gc,gc+phases file as {count, total ms, max ms}. G1 and
+        // Shenandoah log them on the gc tag, ZGC on gc+phases; all end in "Pause ... <n>ms".
+        static double[] gcPauses(File gcLog) {
+            double[] pauses = {0, 0, 0};
+            if (gcLog == null || !gcLog.isFile()) return pauses;
+            Pattern pause = Pattern.compile("Pause .*?(\\d+(?:\\.\\d+)?)ms\\s*$");
+            try (BufferedReader reader = new BufferedReader(new FileReader(gcLog))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Matcher m = pause.matcher(line);
+                    if (!m.find()) continue;
+                    double ms = Double.parseDouble(m.group(1));
+                    pauses[0]++;
+                    pauses[1] += ms;
+                    pauses[2] = Math.max(pauses[2], ms);
+                }
+            } catch (IOException e) {
+                // Summary goes out without GC figures
+            }
+            return pauses;
         }
     }
     
-    private String generateOfflineUUID(String username) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] digest = md.digest(("OfflinePlayer:" + username).getBytes());
+    // RSS (with the -Xmx line) and CPU of the supervised game over the retained samples
+    static class MonitorChart extends JComponent {
+        private static final long serialVersionUID = 1L;
+        private static final Color GRID = new Color(70, 70, 75);
+        private static final Color RSS = new Color(100, 180, 255);
+        private static final Color CPU = new Color(0x4A9E30);
+        private static final Color XMX = new Color(220, 120, 60);
+        private static final BasicStroke DASHED = new BasicStroke(1f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER, 10f, new float[] {6f, 4f}, 0f);
+        
+        private GameSupervisor supervisor;
+        
+        MonitorChart() {
+            setPreferredSize(new Dimension(600, 300));
+        }
+        
+        void setSupervisor(GameSupervisor supervisor) {
+            this.supervisor = supervisor;
+            repaint();
+        }
+        
+        @Override
+        protected void paintComponent(Graphics g) {
+            Graphics2D g2 = (Graphics2D) g.create();
+            int w = getWidth(), h = getHeight();
+            g2.setColor(new Color(30, 30, 35));
+            g2.fillRect(0, 0, w, h);
+            g2.setColor(GRID);
+            for (int i = 1; i < 4; i++) g2.drawLine(0, h * i / 4, w, h * i / 4);
             
-            digest[6] = (byte) ((digest[6] & 0x0f) | 0x30);
-            digest[8] = (byte) ((digest[8] & 0x3f) | 0x80);
+            List<GameSupervisor.Sample> samples = supervisor == null ? Collections.emptyList() : supervisor.samples();
+            g2.setFont(getFont());
+            if (samples.size() < 2) {
+                g2.setColor(Color.GRAY);
+                g2.drawString(supervisor == null ? "No game running" : "Collecting samples...", 10, 20);
+                g2.dispose();
+                return;
+            }
             
-            StringBuilder sb = new StringBuilder();
-            for (byte b : digest) {
-                sb.append(String.format("%02x", b));
+            long rssScale = supervisor.xmxBytes;
+            double cpuScale = 100;
+            for (GameSupervisor.Sample s : samples) {
+                rssScale = Math.max(rssScale, s.rss);
+                cpuScale = Math.max(cpuScale, s.cpu);
             }
-            String hex = sb.toString();
+            rssScale += rssScale / 10;
             
-            return hex.substring(0, 8) + "-" + hex.substring(8, 12) + "-" +
-                   hex.substring(12, 16) + "-" + hex.substring(16, 20) + "-" +
-                   hex.substring(20, 32);
-                   
-        } catch (Exception e) {
-            return "00000000-0000-0000-0000-000000000000";
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            int xmxY = h - (int) (h * supervisor.xmxBytes / rssScale);
+            g2.setColor(XMX);
+            g2.setStroke(DASHED);
+            g2.drawLine(0, xmxY, w, xmxY);
+            g2.setStroke(new BasicStroke(1.5f));
+            
+            int n = samples.size();
+            int[] xs = new int[n], rssYs = new int[n], cpuYs = new int[n];
+            for (int i = 0; i < n; i++) {
+                GameSupervisor.Sample s = samples.get(i);
+                xs[i] = w * i / (n - 1);
+                rssYs[i] = h - (int) (h * Math.max(0, s.rss) / rssScale);
+                cpuYs[i] = h - (int) (h * s.cpu / cpuScale);
+            }
+            g2.setColor(CPU);
+            g2.drawPolyline(xs, cpuYs, n);
+            g2.setColor(RSS);
+            g2.drawPolyline(xs, rssYs, n);
+            
+            GameSupervisor.Sample last = samples.get(n - 1);
+            g2.drawString(String.format("RSS %d MB", last.rss >> 20), 10, 20);
+            g2.setColor(XMX);
+            g2.drawString(String.format("Xmx %d MB", supervisor.xmxBytes >> 20), 10, Math.max(36, xmxY - 4));
+            g2.setColor(CPU);
+            g2.drawString(String.format("CPU %.0f%% (scale %.0f%%)", last.cpu, cpuScale), 120, 20);
+            g2.dispose();
         }
     }
     
     // ═══════════════════════════════════════════════════════════════════════════════
-    // UTILITY METHODS
+    // LAUNCH TIMING
     // ═══════════════════════════════════════════════════════════════════════════════
-    private String getOsName() {
-        String os = System.getProperty("os.name").toLowerCase();
-        if (os.contains("win")) return "windows";
-        if (os.contains("mac")) return "osx";
-        return "linux";
-    }
-    
-    private void downloadFile(String urlStr, String destPath) throws Exception {
-        URL url = new URL(urlStr);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setConnectTimeout(DOWNLOAD_TIMEOUT);
-        conn.setReadTimeout(DOWNLOAD_TIMEOUT);
-        conn.setRequestProperty("User-Agent", LAUNCHER_NAME + "/" + LAUNCHER_VERSION);
+    // Times one launch from Play to the game's main menu. The breakdown is: launcher prep (Play to
+    // spawn), JVM start (spawn to the first line of game output), then each milestone pattern's first
+    // match. Finished launches go to ~/.ctxlauncher/launch-times.log keyed by version and a hash of
+    // the JVM arguments; the median of earlier launches with the same key is shown for comparison.
+    static class LaunchTimer {
+        private final String key;
+        private final String jvmArgs;
+        private final long prepMs;
+        private final long spawnNanos = System.nanoTime();
+        private final Map<String, Pattern> milestones;
+        private final Map<String, Long> marks = new LinkedHashMap<>();
+        private boolean recorded;
         
-        new File(destPath).getParentFile().mkdirs();
+        LaunchTimer(String version, List<String> jvmArgs, long prepMs, Map<String, Pattern> milestones) {
+            this.jvmArgs = String.join(" ", jvmArgs);
+            this.key = version + "@" + String.format("%08x", this.jvmArgs.hashCode());
+            this.prepMs = prepMs;
+            this.milestones = milestones;
+        }
         
-        try (InputStream in = conn.getInputStream();
-             FileOutputStream out = new FileOutputStream(destPath)) {
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            while ((bytesRead = in.read(buffer)) != -1) {
-                out.write(buffer, 0, bytesRead);
+        // "name=regex;name=regex", in the order the game reaches them; bad entries are skipped
+        static Map<String, Pattern> parseMilestones(String spec) {
+            Map<String, Pattern> milestones = new LinkedHashMap<>();
+            for (String entry : spec.split(";")) {
+                int eq = entry.indexOf('=');
+                if (eq <= 0) continue;
+                try {
+                    milestones.put(entry.substring(0, eq).trim(), Pattern.compile(entry.substring(eq + 1).trim()));
+                } catch (PatternSyntaxException e) {
+                    System.err.println("Ignoring startup milestone " + entry + ": " + e.getDescription());
+                }
             }
+            return milestones;
         }
-    }
-    
-    private String extractJsonValue(String json, String key) {
-        int keyPos = json.indexOf("\"" + key + "\"");
-        if (keyPos == -1) return null;
         
-        int colonPos = json.indexOf(":", keyPos);
-        if (colonPos == -1) return null;
-        
-        int valueStart = colonPos + 1;
-        while (valueStart < json.length() && Character.isWhitespace(json.charAt(valueStart))) {
-            valueStart++;
+        // Returns the milestone this line completed, or null
+        synchronized String onLine(String line) {
+            if (recorded) return null;
+            long ms = (System.nanoTime() - spawnNanos) / 1_000_000;
+            if (marks.isEmpty()) marks.put("jvm", ms);
+            for (Map.Entry<String, Pattern> m : milestones.entrySet()) {
+                if (!marks.containsKey(m.getKey()) && m.getValue().matcher(line).find()) {
+                    marks.put(m.getKey(), ms);
+                    return m.getKey();
+                }
+            }
+            return null;
         }
         
-        if (valueStart >= json.length()) return null;
-        
-        if (json.charAt(valueStart) == '"') {
-            int valueEnd = json.indexOf("\"", valueStart + 1);
-            if (valueEnd == -1) return null;
-            return json.substring(valueStart + 1, valueEnd);
+        synchronized boolean complete() {
+            return marks.keySet().containsAll(milestones.keySet());
         }
         
-        return null;
-    }
-    
-    private String extractNestedJsonValue(String json, String... keys) {
-        String current = json;
-        for (int i = 0; i < keys.length - 1; i++) {
-            int keyPos = current.indexOf("\"" + keys[i] + "\"");
-            if (keyPos == -1) return null;
-            int bracePos = current.indexOf("{", keyPos);
-            if (bracePos == -1) return null;
-            int braceEnd = findMatchingBrace(current, bracePos);
-            current = current.substring(bracePos, braceEnd + 1);
-        }
-        return extractJsonValue(current, keys[keys.length - 1]);
-    }
-    
-    private int findMatchingBracket(String s, int start) {
-        int count = 0;
-        for (int i = start; i < s.length(); i++) {
-            if (s.charAt(i) == '[') count++;
-            else if (s.charAt(i) == ']') count--;
-            if (count == 0) return i;
-        }
-        return s.length() - 1;
-    }
-    
-    private int findMatchingBrace(String s, int start) {
-        int count = 0;
-        for (int i = start; i < s.length(); i++) {
-            if (s.charAt(i) == '{') count++;
-            else if (s.charAt(i) == '}') count--;
-            if (count == 0) return i;
+        // Appends this launch to the history once; returns the breakdown with the comparison, or null
+        // if the game never printed anything
+        synchronized String record() {
+            if (recorded || marks.isEmpty()) return null;
+            recorded = true;
+            long total = prepMs + Collections.max(marks.values());
+            StringBuilder breakdown = new StringBuilder("prep=" + prepMs);
+            long previous = 0;
+            for (Map.Entry<String, Long> mark : marks.entrySet()) {
+                breakdown.append(' ').append(mark.getKey()).append("=+").append(mark.getValue() - previous);
+                previous = mark.getValue();
+            }
+            breakdown.append(" total=").append(total).append(complete() ? "" : " (incomplete)");
+            
+            File history = new File(System.getProperty("user.home"), ".ctxlauncher/launch-times.log");
+            List<Long> earlier = new ArrayList<>();
+            try {
+                if (history.isFile()) {
+                    for (String line : Files.readAllLines(history.toPath(), StandardCharsets.UTF_8)) {
+                        String[] cols = line.split("\t");
+                        if (cols.length >= 4 && cols[1].equals(key) && !cols[2].endsWith("(incomplete)")) {
+                            earlier.add(Long.parseLong(cols[2].substring(cols[2].lastIndexOf("total=") + 6)));
+                        }
+                    }
+                }
+                history.getParentFile().mkdirs();
+                try (Writer out = new OutputStreamWriter(new FileOutputStream(history, true), StandardCharsets.UTF_8)) {
+                    out.write(String.format("%tF %<tT\t%s\t%s\t%s%n", new Date(), key, breakdown, jvmArgs));
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Could not update launch history: " + e.getMessage());
+            }
+            
+            String result = key + " " + breakdown + " ms";
+            if (!earlier.isEmpty()) {
+                Collections.sort(earlier);
+                result += String.format(" (median of %d earlier: %d ms)", earlier.size(), earlier.get(earlier.size() / 2));
+            }
+            return result;
         }
-        return s.length() - 1;
     }
     
     // ═══════════════════════════════════════════════════════════════════════════════
@@ -1290,11 +5399,27 @@ public class CTXLauncher {
         private static final Color GREEN_HOVER = new Color(0x4A9E30);
         private static final Color GREEN_PRESSED = new Color(0x2E6B1E);
         private static final Color GREEN_DISABLED = new Color(0x4A4A4A);
+        private static final Color SHADOW = new Color(0, 0, 0, 80);
+        private static final Color BORDER = new Color(0, 0, 0, 60);
+        private static final Color INNER_HIGHLIGHT = new Color(255, 255, 255, 25);
+        private static final Color HIGHLIGHT_TOP = new Color(255, 255, 255, 40);
+        private static final Color HIGHLIGHT_BOTTOM = new Color(255, 255, 255, 0);
+        private static final Color TEXT_SHADOW = new Color(0, 0, 0, 100);
+        private static final Color TEXT_DISABLED = new Color(180, 180, 180);
+        private static final BasicStroke BORDER_STROKE = new BasicStroke(1.5f);
+        private static final Color[] STATE_COLORS = { GREEN_PRIMARY, GREEN_HOVER, GREEN_PRESSED, GREEN_DISABLED };
+        private static final int NORMAL = 0, HOVER = 1, PRESSED = 2, DISABLED = 3;
         
         private boolean isHovered = false;
         private boolean isPressed = false;
         private String displayText = "▶  PLAY";
         
+        // Button body per state, rasterised once at device resolution and blitted on every repaint;
+        // dropped when the size or display scale changes. Only the text is drawn live.
+        private final BufferedImage[] backgrounds = new BufferedImage[STATE_COLORS.length];
+        private int cachedWidth, cachedHeight;
+        private double cachedScale;
+        
         public MojangPlayButton() {
             super("▶  PLAY");
             setFont(new Font("Segoe UI", Font.BOLD, 18));
@@ -1308,25 +5433,26 @@ public class CTXLauncher {
             addMouseListener(new MouseAdapter() {
                 @Override
                 public void mouseEntered(MouseEvent e) {
-                    if (isEnabled()) { isHovered = true; repaint(); }
+                    if (isEnabled() && !isHovered) { isHovered = true; repaint(); }
                 }
                 @Override
                 public void mouseExited(MouseEvent e) {
-                    isHovered = false; repaint();
+                    if (isHovered) { isHovered = false; repaint(); }
                 }
                 @Override
                 public void mousePressed(MouseEvent e) {
-                    if (isEnabled()) { isPressed = true; repaint(); }
+                    if (isEnabled() && !isPressed) { isPressed = true; repaint(); }
                 }
                 @Override
                 public void mouseReleased(MouseEvent e) {
-                    isPressed = false; repaint();
+                    if (isPressed) { isPressed = false; repaint(); }
                 }
             });
         }
         
         @Override
         public void setText(String text) {
+            if (Objects.equals(text, displayText)) return;
             this.displayText = text;
             repaint();
         }
@@ -1336,74 +5462,248 @@ public class CTXLauncher {
             return displayText;
         }
         
+        private int state() {
+            if (!isEnabled()) return DISABLED;
+            if (isPressed) return PRESSED;
+            if (isHovered) return HOVER;
+            return NORMAL;
+        }
+        
+        private BufferedImage background(int state, int w, int h, double scale) {
+            if (w != cachedWidth || h != cachedHeight || scale != cachedScale) {
+                Arrays.fill(backgrounds, null);
+                cachedWidth = w;
+                cachedHeight = h;
+                cachedScale = scale;
+            }
+            BufferedImage image = backgrounds[state];
+            if (image == null) {
+                image = new BufferedImage((int) Math.ceil(w * scale), (int) Math.ceil(h * scale), BufferedImage.TYPE_INT_ARGB_PRE);
+                Graphics2D g2 = image.createGraphics();
+                g2.scale(scale, scale);
+                g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                
+                // Draw shadow
+                g2.setColor(SHADOW);
+                g2.fillRoundRect(3, 5, w - 6, h - 6, 8, 8);
+                
+                // Draw main button body
+                g2.setColor(STATE_COLORS[state]);
+                g2.fillRoundRect(0, 0, w - 3, h - 5, 8, 8);
+                
+                // Draw highlight gradient on top half
+                g2.setPaint(new GradientPaint(0, 0, HIGHLIGHT_TOP, 0, h / 2, HIGHLIGHT_BOTTOM));
+                g2.fillRoundRect(1, 1, w - 5, h / 2 - 3, 7, 7);
+                
+                // Draw border
+                g2.setColor(BORDER);
+                g2.setStroke(BORDER_STROKE);
+                g2.drawRoundRect(0, 0, w - 4, h - 6, 8, 8);
+                
+                // Draw inner highlight
+                g2.setColor(INNER_HIGHLIGHT);
+                g2.drawRoundRect(1, 1, w - 6, h - 8, 7, 7);
+                
+                g2.dispose();
+                backgrounds[state] = image;
+            }
+            return image;
+        }
+        
         @Override
         protected void paintComponent(Graphics g) {
             Graphics2D g2 = (Graphics2D) g.create();
-            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-            
             int w = getWidth();
             int h = getHeight();
-            
-            // Determine background color
-            Color bgColor;
-            if (!isEnabled()) {
-                bgColor = GREEN_DISABLED;
-            } else if (isPressed) {
-                bgColor = GREEN_PRESSED;
-            } else if (isHovered) {
-                bgColor = GREEN_HOVER;
-            } else {
-                bgColor = GREEN_PRIMARY;
-            }
-            
-            // Draw shadow
-            g2.setColor(new Color(0, 0, 0, 80));
-            g2.fillRoundRect(3, 5, w - 6, h - 6, 8, 8);
-            
-            // Draw main button body
-            g2.setColor(bgColor);
-            g2.fillRoundRect(0, 0, w - 3, h - 5, 8, 8);
-            
-            // Draw highlight gradient on top half
-            GradientPaint highlight = new GradientPaint(
-                0, 0, new Color(255, 255, 255, 40),
-                0, h / 2, new Color(255, 255, 255, 0)
-            );
-            g2.setPaint(highlight);
-            g2.fillRoundRect(1, 1, w - 5, h / 2 - 3, 7, 7);
-            
-            // Draw border
-            g2.setColor(new Color(0, 0, 0, 60));
-            g2.setStroke(new BasicStroke(1.5f));
-            g2.drawRoundRect(0, 0, w - 4, h - 6, 8, 8);
-            
-            // Draw inner highlight
-            g2.setColor(new Color(255, 255, 255, 25));
-            g2.drawRoundRect(1, 1, w - 6, h - 8, 7, 7);
+            double scale = g2.getTransform().getScaleX();
+            g2.drawImage(background(state(), w, h, scale), 0, 0, w, h, null);
             
             // Draw text with shadow
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
             g2.setFont(getFont());
             FontMetrics fm = g2.getFontMetrics();
             int textX = (w - fm.stringWidth(displayText)) / 2;
             int textY = (h - 5 + fm.getAscent() - fm.getDescent()) / 2;
             
             // Text shadow
-            g2.setColor(new Color(0, 0, 0, 100));
+            g2.setColor(TEXT_SHADOW);
             g2.drawString(displayText, textX + 1, textY + 1);
             
             // Text
-            g2.setColor(isEnabled() ? Color.WHITE : new Color(180, 180, 180));
+            g2.setColor(isEnabled() ? Color.WHITE : TEXT_DISABLED);
             g2.drawString(displayText, textX, textY);
             
             g2.dispose();
         }
     }
     
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // STARTUP TRACE
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // Milestones in ms since the JVM started. Once Play is enabled the run is appended as one line
+    // to ~/.ctxlauncher/startup.log, so kiosk restarts can be compared over time. An AppCDS child
+    // counts from its parent's start (-Dctx.trace.start), so cds=on lines include the re-exec.
+    static class StartupTrace {
+        private static final long JVM_START = Long.getLong("ctx.trace.start", ProcessHandle.current().info().startInstant()
+            .map(instant -> instant.toEpochMilli()).orElse(System.currentTimeMillis()));
+        private static final Map<String, Long> marks = new LinkedHashMap<>();
+        private static boolean written;
+        
+        static synchronized void mark(String milestone) {
+            marks.putIfAbsent(milestone, System.currentTimeMillis() - JVM_START);
+            if (milestone.equals("play-enabled") && !written) {
+                written = true;
+                write();
+            }
+        }
+        
+        private static void write() {
+            StringBuilder line = new StringBuilder(String.format("%tF %<tT", new Date()));
+            line.append(" cds=").append(usesSharedArchive() ? "on" : "off");
+            for (Map.Entry<String, Long> e : marks.entrySet()) {
+                line.append(' ').append(e.getKey()).append('=').append(e.getValue());
+            }
+            File log = new File(System.getProperty("user.home"), ".ctxlauncher/startup.log");
+            log.getParentFile().mkdirs();
+            try (Writer out = new OutputStreamWriter(new FileOutputStream(log, true), StandardCharsets.UTF_8)) {
+                out.write(line + "\n");
+            } catch (IOException e) {
+                // Tracing is best effort
+            }
+        }
+        
+        static boolean usesSharedArchive() {
+            for (String arg : java.lang.management.ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+                if (arg.startsWith("-XX:SharedArchiveFile")) return true;
+            }
+            return false;
+        }
+    }
+    
+    // -Dctx.cds=true re-executes the launcher against an AppCDS archive of its own classes in
+    // ~/.ctxlauncher/launcher.jsa. JDK 19+ keeps the archive current by itself; older JDKs dump it
+    // at the exit of the first run and map it from then on. Needs a class path, so it does nothing
+    // when run straight from the source file.
+    static void relaunchWithLauncherArchive(String[] args) {
+        if (!Boolean.getBoolean("ctx.cds") || Boolean.getBoolean("ctx.cds.child")) return;
+        String classPath = System.getProperty("java.class.path", "");
+        if (classPath.isEmpty()) return;
+        
+        File archive = new File(System.getProperty("user.home"), ".ctxlauncher/launcher.jsa");
+        archive.getParentFile().mkdirs();
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        if (Runtime.version().feature() >= 19) {
+            command.add("-XX:+AutoCreateSharedArchive");
+            command.add("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+        } else if (archive.exists()) {
+            command.add("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+        } else {
+            command.add("-XX:ArchiveClassesAtExit=" + archive.getAbsolutePath());
+        }
+        command.add("-Dctx.cds.child=true");
+        command.add("-Dctx.trace.start=" + StartupTrace.JVM_START);
+        for (String arg : java.lang.management.ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (!arg.startsWith("-Dctx.cds") && !arg.startsWith("-Dctx.trace.start")) command.add(arg);
+        }
+        command.add("-cp");
+        command.add(classPath);
+        command.add(CTXLauncher.class.getName());
+        command.addAll(Arrays.asList(args));
+        
+        try {
+            Process child = new ProcessBuilder(command).inheritIO().start();
+            System.exit(child.waitFor());
+        } catch (IOException | InterruptedException e) {
+            System.err.println("AppCDS relaunch failed, starting normally: " + e.getMessage());
+        }
+    }
+    
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // FIXTURE SERVER
+    // ═══════════════════════════════════════════════════════════════════════════════
+    // java CTXLauncher --serve-fixtures <dir> [port]
+    // Serves a mirror of the Mojang layout from <dir> for benchmarking. JSON goes out gzip-encoded
+    // when the client asks for it (unless -Dctx.fixtures.gzip=false), and every request logs raw vs
+    // wire bytes. Point the launcher at it with -Dctx.manifest=http://localhost:<port>/... and
+    // -Dctx.resources=http://localhost:<port>/objects/ and a manifest whose URLs do the same.
+    static class FixtureServer {
+        static void serve(File root, int port) throws IOException {
+            boolean gzip = !"false".equals(System.getProperty("ctx.fixtures.gzip"));
+            Path base = root.toPath().toAbsolutePath().normalize();
+            com.sun.net.httpserver.HttpServer server = com.sun.net.httpserver.HttpServer.create(new InetSocketAddress(port), 0);
+            
+            server.createContext("/", exchange -> {
+                try {
+                    Path file = base.resolve(exchange.getRequestURI().getPath().substring(1)).normalize();
+                    if (!file.startsWith(base) || !Files.isRegularFile(file)) {
+                        exchange.sendResponseHeaders(404, -1);
+                        return;
+                    }
+                    
+                    String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                    boolean compress = gzip && file.toString().endsWith(".json") && accept != null && accept.contains("gzip");
+                    long raw = Files.size(file);
+                    long[] wire = new long[1];
+                    OutputStream counted = new FilterOutputStream(exchange.getResponseBody()) {
+                        @Override
+                        public void write(byte[] b, int off, int len) throws IOException {
+                            out.write(b, off, len);
+                            wire[0] += len;
+                        }
+                    };
+                    
+                    if (compress) {
+                        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                        exchange.sendResponseHeaders(200, 0);
+                        try (OutputStream out = new GZIPOutputStream(counted, 8192)) {
+                            Files.copy(file, out);
+                        }
+                    } else {
+                        exchange.sendResponseHeaders(200, raw);
+                        try (OutputStream out = counted) {
+                            Files.copy(file, out);
+                        }
+                    }
+                    System.out.println("GET " + exchange.getRequestURI().getPath() + "  raw " + raw + "  wire " + wire[0]
+                        + (compress ? String.format("  (%.1fx)", raw / (double) Math.max(wire[0], 1)) : ""));
+                } finally {
+                    exchange.close();
+                }
+            });
+            
+            server.setExecutor(Executors.newFixedThreadPool(DOWNLOAD_THREADS));
+            server.start();
+            System.out.println("Serving fixtures from " + base + " on http://localhost:" + port + "/");
+        }
+    }
+    
     // ═══════════════════════════════════════════════════════════════════════════════
     // MAIN
     // ═══════════════════════════════════════════════════════════════════════════════
     public static void main(String[] args) {
+        StartupTrace.mark("main");
+        relaunchWithLauncherArchive(args);
+        if (args.length >= 2 && args[0].equals("--serve-fixtures")) {
+            try {
+                FixtureServer.serve(new File(args[1]), args.length > 2 ? Integer.parseInt(args[2]) : 8080);
+            } catch (IOException e) {
+                System.err.println("Fixture server failed: " + e.getMessage());
+                System.exit(1);
+            }
+            return;
+        }
+        
+        if (args.length >= 2 && args[0].equals("--bench-classpath")) {
+            try {
+                new CTXLauncher(true).benchClasspath(args[1], args.length > 2 ? Integer.parseInt(args[2]) : 5);
+                System.exit(0);
+            } catch (IOException e) {
+                System.err.println("Classpath benchmark failed: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        
         System.out.println("╔═══════════════════════════════════════════════════════════════════════╗");
         System.out.println("║                     CTXLauncher v0.1                                  ║");
         System.out.println("║                Team Flames / Samsoft / Cat OS                         ║");